@@ -3,16 +3,33 @@ package com.montealegreluis.activityfeed;
 import com.montealegreluis.assertions.Assert;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import lombok.EqualsAndHashCode;
 import org.slf4j.event.Level;
 
-@EqualsAndHashCode(exclude = "factory")
+/**
+ * Something that happened in the application, along with the context needed to understand it
+ *
+ * <p>An activity belongs to a single feed. The first feed it is added to assigns its sequence, and
+ * later feeds keep it.
+ */
+@EqualsAndHashCode(exclude = {"factory", "correlation", "timestamp", "sequence"})
 public final class Activity {
+  /** Keys used by activities, which contexts cannot define */
+  static final Set<String> RESERVED_KEYS =
+      Set.of("level", "message", "context", "timestamp", "sequence");
+
+  private static final AtomicLongFieldUpdater<Activity> SEQUENCE =
+      AtomicLongFieldUpdater.newUpdater(Activity.class, "sequence");
   private final Level level;
-  private final String identifier;
+  private final ActivityIdentifier identifier;
   private final String message;
   private final ContextFactory factory;
   private final Map<String, Object> context = new LinkedHashMap<>();
+  private final CorrelationContext correlation;
+  private final long timestamp;
+  private volatile long sequence;
 
   public static Activity info(String identifier, String message) {
     return info(identifier, message, null);
@@ -56,7 +73,30 @@ public final class Activity {
 
   static Activity withLevel(
       Level level, String identifier, String message, ContextFactory factory) {
-    return new Activity(level, identifier, message, factory);
+    return withLevel(level, ActivityIdentifier.of(identifier), message, factory);
+  }
+
+  static Activity withLevel(
+      Level level, ActivityIdentifier identifier, String message, ContextFactory factory) {
+    Assert.notNull(level, "Level cannot be null");
+    Assert.notNull(identifier, "Activity identifier cannot be null");
+    Assert.notBlank(message, "Activity message cannot be blank. '%s' given");
+    return new Activity(level, identifier, message, factory, CorrelationContext.current());
+  }
+
+  /** Definitions are validated when created, activities created from them are not */
+  static Activity fromDefinition(
+      ActivityDefinition definition, ActivityDefinition.DefinedValues values) {
+    return new Activity(
+        definition.level(),
+        definition.identifier(),
+        definition.message(),
+        values,
+        CorrelationContext.current());
+  }
+
+  ActivityIdentifier identifier() {
+    return identifier;
   }
 
   String message() {
@@ -65,23 +105,86 @@ public final class Activity {
 
   Map<String, Object> context() {
     Map<String, Object> context = new LinkedHashMap<>();
-    context.put("identifier", identifier);
-    if (factory != null) factory.addEntries(context);
+    context.put("identifier", identifier.value());
+    addEntries(context);
     this.context.put("context", context);
     return this.context;
   }
 
+  void addEntries(Map<String, Object> context) {
+    if (factory != null) factory.addEntries(context);
+  }
+
+  /** Values for the keys of the definition this activity was created from, if any */
+  ActivityDefinition.DefinedValues definedValues() {
+    return factory instanceof ActivityDefinition.DefinedValues
+        ? (ActivityDefinition.DefinedValues) factory
+        : null;
+  }
+
+  CorrelationContext correlation() {
+    return correlation;
+  }
+
   Level level() {
     return level;
   }
 
-  private Activity(Level level, String identifier, String message, ContextFactory factory) {
-    Assert.notNull(level, "Level cannot be null");
+  /** Nanoseconds since the epoch when this activity was created */
+  long timestamp() {
+    return timestamp;
+  }
+
+  /** Position of this activity in the feed that recorded it first, 0 if it wasn't added to one */
+  long sequence() {
+    return sequence;
+  }
+
+  /** Only the first feed this activity is added to assigns its sequence */
+  void sequence(long sequence) {
+    SEQUENCE.compareAndSet(this, 0, sequence);
+  }
+
+  /** A copy of this activity with the given timestamp and sequence */
+  Activity stamped(long timestamp, long sequence) {
+    return new Activity(level, identifier, message, factory, correlation, timestamp, sequence);
+  }
+
+  /** A copy of this activity with the given entries as its context */
+  Activity withEntries(Map<String, Object> entries) {
+    return new Activity(
+        level,
+        identifier,
+        message,
+        (context) -> context.putAll(entries),
+        correlation,
+        timestamp,
+        sequence);
+  }
+
+  private Activity(
+      Level level,
+      ActivityIdentifier identifier,
+      String message,
+      ContextFactory factory,
+      CorrelationContext correlation) {
+    this(level, identifier, message, factory, correlation, ActivityClock.CURRENT.now(), 0);
+  }
+
+  private Activity(
+      Level level,
+      ActivityIdentifier identifier,
+      String message,
+      ContextFactory factory,
+      CorrelationContext correlation,
+      long timestamp,
+      long sequence) {
     this.level = level;
-    Assert.notBlank(identifier, "Activity identifier cannot be blank. '%s' given");
     this.identifier = identifier;
-    Assert.notBlank(message, "Activity message cannot be blank. '%s' given");
     this.message = message;
     this.factory = factory;
+    this.correlation = correlation;
+    this.timestamp = timestamp;
+    this.sequence = sequence;
   }
 }
@@ -0,0 +1,405 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Keeps activities in a local file as compressed blocks that can be searched by time and identifier
+ *
+ * <p>Activities are encoded as JSON and buffered until a block is full. Every block is compressed
+ * and followed by a footer with the time range and identifiers of the activities in it, so readers
+ * only decompress the blocks that may contain the activities they're looking for.
+ *
+ * <p>Full blocks are compressed and written by a background thread, so recording an activity only
+ * waits for its encoding and for a copy of its bytes. Producers wait for the background thread
+ * only if it falls several blocks behind.
+ *
+ * <p>A block partially written before a crash is ignored by readers, and discarded when the
+ * archive is opened again.
+ */
+public final class ActivityArchive implements ActivityRecorder, Closeable {
+  private static final int MAGIC = 0x41435441;
+  private static final int FOOTER_TRAILER_SIZE = 8;
+  private static final int MINIMUM_FOOTER_SIZE = 28 + FOOTER_TRAILER_SIZE;
+  private static final int SCAN_CHUNK_SIZE = 8 * 1024;
+  private static final int MAX_PENDING_BLOCKS = 4;
+  private static final long NANOS_PER_MILLI = 1_000_000L;
+  private final FileChannel file;
+  private final JsonActivityEncoder encoder;
+  private final int blockSize;
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  private final ExecutorService writer =
+      Executors.newSingleThreadExecutor(ActivityArchive::writerThread);
+  private final Semaphore pendingBlocks = new Semaphore(MAX_PENDING_BLOCKS);
+  private Block block;
+  private boolean closed;
+  private volatile IOException failure;
+
+  public ActivityArchive(Path file) throws IOException {
+    this(file, new JsonActivityEncoder(), 256 * 1024);
+  }
+
+  /** Blocks are compressed once their uncompressed size reaches the given amount of bytes */
+  public ActivityArchive(Path file, JsonActivityEncoder encoder, int blockSize)
+      throws IOException {
+    Assert.notNull(file, "Archive file cannot be null");
+    Assert.notNull(encoder, "Encoder cannot be null");
+    Assert.isTrue(blockSize > 0, "Block size must be greater than zero");
+    this.file =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    var footers = footers(this.file);
+    long end = footers.isEmpty() ? 0 : footers.getLast().end;
+    this.file.truncate(end).position(end);
+    this.encoder = encoder;
+    this.blockSize = blockSize;
+    this.block = new Block(blockSize);
+  }
+
+  /** Reads the activities recorded within the given time range, in the order they were recorded */
+  public static void read(Path file, Instant from, Instant to, Consumer<String> activities)
+      throws IOException {
+    read(file, from, to, null, activities);
+  }
+
+  /**
+   * Reads the activities with the given identifier recorded within the given time range, in the
+   * order they were recorded
+   */
+  public static void read(
+      Path file, Instant from, Instant to, String identifier, Consumer<String> activities)
+      throws IOException {
+    Assert.notNull(from, "Range start cannot be null");
+    Assert.notNull(to, "Range end cannot be null");
+    long start = epochMillis(from);
+    long end = epochMillis(to);
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      for (var footer : footers(channel)) {
+        if (footer.maximumTimestamp < start || footer.minimumTimestamp > end) continue;
+        int identifierIndex = identifier == null ? -1 : footer.identifiers.indexOf(identifier);
+        if (identifier != null && identifierIndex < 0) continue;
+        footer.read(channel, start, end, identifierIndex, activities);
+      }
+    }
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var json = encoder.encode(activity, context);
+    long timestamp = activity.timestamp() / NANOS_PER_MILLI;
+    synchronized (this) {
+      assertWritable();
+      block.add(timestamp, activity.identifier().value(), json);
+      if (block.size() >= blockSize) seal();
+    }
+  }
+
+  /** Compresses and writes the activities buffered so far as a block */
+  public void flush() {
+    Future<?> written;
+    synchronized (this) {
+      assertWritable();
+      written = seal();
+    }
+    await(written);
+    if (failure != null) throw new UncheckedIOException(failure);
+  }
+
+  /** Writes the activities buffered so far, recording activities afterwards fails */
+  @Override
+  public void close() throws IOException {
+    Future<?> written;
+    synchronized (this) {
+      if (closed) return;
+      closed = true;
+      written = failure == null ? seal() : null;
+    }
+    try {
+      if (written != null) await(written);
+      if (failure != null) throw failure;
+    } finally {
+      writer.shutdown();
+      try {
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      deflater.end();
+      file.close();
+    }
+  }
+
+  /** Hands the current block to the writer thread, even if empty, to wait for the previous ones */
+  private Future<?> seal() {
+    var sealed = block;
+    block = new Block(blockSize);
+    pendingBlocks.acquireUninterruptibly();
+    return writer.submit(
+        () -> {
+          try {
+            if (failure == null) write(sealed);
+          } catch (IOException e) {
+            failure = e;
+          } finally {
+            pendingBlocks.release();
+          }
+        });
+  }
+
+  private void write(Block block) throws IOException {
+    if (block.activities == 0) return;
+    var compressed = new ByteArrayOutputStream(block.size() / 4);
+    deflater.reset();
+    try (var output = new DeflaterOutputStream(compressed, deflater)) {
+      block.entries.writeTo(output);
+    }
+    var footer = block.footer(compressed.size());
+    var buffer = ByteBuffer.allocate(compressed.size() + footer.length);
+    buffer.put(compressed.toByteArray()).put(footer).flip();
+    while (buffer.hasRemaining()) file.write(buffer);
+  }
+
+  private static void await(Future<?> written) {
+    try {
+      written.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private void assertWritable() {
+    if (closed) throw new IllegalStateException("Activity archive is closed");
+    if (failure != null) throw new UncheckedIOException(failure);
+  }
+
+  private static Thread writerThread(Runnable runnable) {
+    var thread = new Thread(runnable, "activity-archive-writer");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Footers are read from the end of the file, they're returned from the oldest to the newest. If
+   * the file ends with a partially written block, footers are read from the end of the last
+   * complete one
+   */
+  private static Deque<Footer> footers(FileChannel channel) throws IOException {
+    long end = channel.size();
+    while (end > 0) {
+      var footers = footersEndingAt(channel, end);
+      if (footers != null) return footers;
+      end = previousTrailerEnd(channel, end - 1);
+    }
+    return new ArrayDeque<>();
+  }
+
+  /** Returns null unless there is a chain of valid footers from the given position to the start */
+  private static Deque<Footer> footersEndingAt(FileChannel channel, long end) throws IOException {
+    Deque<Footer> footers = new ArrayDeque<>();
+    var trailer = ByteBuffer.allocate(FOOTER_TRAILER_SIZE);
+    while (end > 0) {
+      if (end < MINIMUM_FOOTER_SIZE) return null;
+      readFully(channel, trailer.clear(), end - FOOTER_TRAILER_SIZE);
+      int footerSize = trailer.flip().getInt();
+      if (trailer.getInt() != MAGIC) return null;
+      if (footerSize < MINIMUM_FOOTER_SIZE || footerSize > end) return null;
+      var bytes = ByteBuffer.allocate(footerSize - FOOTER_TRAILER_SIZE);
+      readFully(channel, bytes, end - footerSize);
+      var footer = Footer.from(bytes.array(), end - footerSize);
+      if (footer == null) return null;
+      footers.addFirst(footer);
+      end = footer.blockStart;
+    }
+    return footers;
+  }
+
+  /** End of the last trailer magic number at or before the given position, or 0 if none */
+  private static long previousTrailerEnd(FileChannel channel, long last) throws IOException {
+    var chunk = ByteBuffer.allocate(SCAN_CHUNK_SIZE);
+    while (last >= FOOTER_TRAILER_SIZE) {
+      long start = Math.max(0, last - SCAN_CHUNK_SIZE);
+      readFully(channel, chunk.clear().limit((int) (last - start)), start);
+      for (long end = last; end >= start + Integer.BYTES; end--) {
+        if (chunk.getInt((int) (end - Integer.BYTES - start)) == MAGIC) return end;
+      }
+      if (start == 0) break;
+      last = start + Integer.BYTES - 1;
+    }
+    return 0;
+  }
+
+  /** Instant.MIN and Instant.MAX cannot be represented in milliseconds */
+  private static long epochMillis(Instant instant) {
+    try {
+      return instant.toEpochMilli();
+    } catch (ArithmeticException e) {
+      return instant.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of activity archive");
+      }
+    }
+  }
+
+  /** Activities buffered until they're compressed as a block */
+  private static final class Block {
+    private final ByteArrayOutputStream entries;
+    private final DataOutputStream data;
+    private final Map<String, Integer> identifiers = new LinkedHashMap<>();
+    private int activities;
+    private long minimumTimestamp = Long.MAX_VALUE;
+    private long maximumTimestamp = Long.MIN_VALUE;
+
+    private Block(int blockSize) {
+      this.entries = new ByteArrayOutputStream(Math.min(blockSize, SCAN_CHUNK_SIZE));
+      this.data = new DataOutputStream(entries);
+    }
+
+    private void add(long timestamp, String identifier, byte[] json) {
+      int index = identifiers.computeIfAbsent(identifier, (key) -> identifiers.size());
+      try {
+        data.writeLong(timestamp);
+        data.writeInt(index);
+        data.writeInt(json.length);
+        data.write(json);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      activities++;
+      minimumTimestamp = Math.min(minimumTimestamp, timestamp);
+      maximumTimestamp = Math.max(maximumTimestamp, timestamp);
+    }
+
+    private int size() {
+      return entries.size();
+    }
+
+    private byte[] footer(int compressedSize) throws IOException {
+      var footer = new ByteArrayOutputStream();
+      var data = new DataOutputStream(footer);
+      data.writeLong(minimumTimestamp);
+      data.writeLong(maximumTimestamp);
+      data.writeInt(activities);
+      data.writeInt(compressedSize);
+      data.writeInt(identifiers.size());
+      for (var identifier : identifiers.keySet()) data.writeUTF(identifier);
+      data.writeInt(footer.size() + FOOTER_TRAILER_SIZE);
+      data.writeInt(MAGIC);
+      return footer.toByteArray();
+    }
+  }
+
+  private static final class Footer {
+    private final long minimumTimestamp;
+    private final long maximumTimestamp;
+    private final int count;
+    private final List<String> identifiers;
+    private final long blockStart;
+    private final long end;
+
+    /** Returns null if the bytes are not a valid footer */
+    private static Footer from(byte[] bytes, long footerStart) {
+      try {
+        var data = new DataInputStream(new ByteArrayInputStream(bytes));
+        long minimumTimestamp = data.readLong();
+        long maximumTimestamp = data.readLong();
+        int count = data.readInt();
+        int compressedSize = data.readInt();
+        int identifiersCount = data.readInt();
+        if (count < 0 || compressedSize < 0 || compressedSize > footerStart) return null;
+        if (identifiersCount < 0 || identifiersCount > data.available() / 2) return null;
+        List<String> identifiers = new ArrayList<>(identifiersCount);
+        for (int i = 0; i < identifiersCount; i++) identifiers.add(data.readUTF());
+        if (data.available() > 0) return null;
+        return new Footer(
+            minimumTimestamp,
+            maximumTimestamp,
+            count,
+            identifiers,
+            footerStart - compressedSize,
+            footerStart + bytes.length + FOOTER_TRAILER_SIZE);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    private Footer(
+        long minimumTimestamp,
+        long maximumTimestamp,
+        int count,
+        List<String> identifiers,
+        long blockStart,
+        long end) {
+      this.minimumTimestamp = minimumTimestamp;
+      this.maximumTimestamp = maximumTimestamp;
+      this.count = count;
+      this.identifiers = identifiers;
+      this.blockStart = blockStart;
+      this.end = end;
+    }
+
+    /** Decompresses the block as it reads it, without loading it in memory first */
+    private void read(
+        FileChannel channel, long from, long to, int identifier, Consumer<String> activities)
+        throws IOException {
+      var inflater = new Inflater();
+      try {
+        var compressed = Channels.newInputStream(channel.position(blockStart));
+        var data = new DataInputStream(new InflaterInputStream(compressed, inflater));
+        for (int i = 0; i < count; i++) {
+          long timestamp = data.readLong();
+          int entryIdentifier = data.readInt();
+          var json = new byte[data.readInt()];
+          data.readFully(json);
+          if (timestamp < from || timestamp > to) continue;
+          if (identifier >= 0 && entryIdentifier != identifier) continue;
+          activities.accept(new String(json, StandardCharsets.UTF_8));
+        }
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+}
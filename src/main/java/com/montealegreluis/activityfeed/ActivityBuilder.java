@@ -10,7 +10,7 @@ import org.slf4j.event.Level;
 public final class ActivityBuilder {
   private final Map<String, Object> context = new LinkedHashMap<>();
   private final Level level;
-  private String identifier;
+  private ActivityIdentifier identifier;
   private String message;
 
   public static ActivityBuilder aTracingActivity() {
@@ -38,6 +38,10 @@ public final class ActivityBuilder {
   }
 
   public ActivityBuilder withIdentifier(String identifier) {
+    return withIdentifier(ActivityIdentifier.of(identifier));
+  }
+
+  public ActivityBuilder withIdentifier(ActivityIdentifier identifier) {
     this.identifier = identifier;
     return this;
   }
@@ -53,6 +57,12 @@ public final class ActivityBuilder {
     return this;
   }
 
+  /** Adds the place where the activity was built, useful to trace activities without exceptions */
+  public ActivityBuilder withCallSite() {
+    context.put("callSite", ExceptionContextFactory.callSite());
+    return this;
+  }
+
   public ActivityBuilder with(String key, Object value) {
     context.put(key, value);
     return this;
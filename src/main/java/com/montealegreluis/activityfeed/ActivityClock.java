@@ -0,0 +1,47 @@
+package com.montealegreluis.activityfeed;
+
+import java.time.Instant;
+import java.util.Locale;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The clock activities read their creation time from, as nanoseconds since the epoch
+ *
+ * <p>It is chosen once with the system property <code>activityfeed.clock</code>, either <code>
+ * coarse</code> (the default) or <code>precise</code>.
+ */
+public enum ActivityClock {
+  /** Millisecond precision, reading it is as cheap as reading the system time gets */
+  COARSE {
+    @Override
+    public long now() {
+      return System.currentTimeMillis() * NANOS_PER_MILLI;
+    }
+  },
+  /** The best precision the platform offers, usually microseconds */
+  PRECISE {
+    @Override
+    public long now() {
+      var now = Instant.now();
+      return now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+    }
+  };
+
+  private static final long NANOS_PER_MILLI = 1_000_000L;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+  static final ActivityClock CURRENT = fromProperty(System.getProperty("activityfeed.clock"));
+
+  public abstract long now();
+
+  /** Unknown clocks fall back to the coarse one, with a warning */
+  static ActivityClock fromProperty(String clock) {
+    if (clock == null) return COARSE;
+    try {
+      return valueOf(clock.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      LoggerFactory.getLogger(ActivityClock.class)
+          .warn("Unknown activity clock '{}', expected coarse or precise. Using coarse", clock);
+      return COARSE;
+    }
+  }
+}
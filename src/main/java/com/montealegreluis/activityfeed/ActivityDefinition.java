@@ -0,0 +1,124 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.montealegreluis.assertions.Assert;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import org.slf4j.event.Level;
+
+/**
+ * Level, identifier, message and context keys of an activity that is recorded over and over
+ *
+ * <pre>
+ * private static final ActivityDefinition SEARCH_COMPLETED =
+ *     ActivityDefinition.info(
+ *         "search-products", "Search Products completed", "category", "maximumPrice");
+ *
+ * // ...
+ *
+ * feed.add(SEARCH_COMPLETED.activity("Toys", 2000));
+ * </pre>
+ *
+ * <p>Everything but the context values is validated and encoded as JSON once, when the definition
+ * is created.
+ */
+public final class ActivityDefinition {
+  private final Level level;
+  private final ActivityIdentifier identifier;
+  private final String message;
+  private final SerializableString encodedMessage;
+  private final String[] keys;
+  private final SerializableString[] encodedKeys;
+  private final String valueCountMessage;
+
+  public static ActivityDefinition trace(String identifier, String message, String... keys) {
+    return new ActivityDefinition(Level.TRACE, identifier, message, keys);
+  }
+
+  public static ActivityDefinition debug(String identifier, String message, String... keys) {
+    return new ActivityDefinition(Level.DEBUG, identifier, message, keys);
+  }
+
+  public static ActivityDefinition info(String identifier, String message, String... keys) {
+    return new ActivityDefinition(Level.INFO, identifier, message, keys);
+  }
+
+  public static ActivityDefinition warning(String identifier, String message, String... keys) {
+    return new ActivityDefinition(Level.WARN, identifier, message, keys);
+  }
+
+  public static ActivityDefinition error(String identifier, String message, String... keys) {
+    return new ActivityDefinition(Level.ERROR, identifier, message, keys);
+  }
+
+  /** Values must be given in the same order as the keys of this definition */
+  public Activity activity(Object... values) {
+    Assert.isTrue(values.length == keys.length, valueCountMessage);
+    return Activity.fromDefinition(this, new DefinedValues(values));
+  }
+
+  Level level() {
+    return level;
+  }
+
+  ActivityIdentifier identifier() {
+    return identifier;
+  }
+
+  String message() {
+    return message;
+  }
+
+  private ActivityDefinition(Level level, String identifier, String message, String... keys) {
+    Assert.notBlank(message, "Activity message cannot be blank. '%s' given");
+    Assert.notNull(keys, "Context keys cannot be null");
+    this.level = level;
+    this.identifier = ActivityIdentifier.of(identifier);
+    this.message = message;
+    this.encodedMessage = encode(message);
+    this.keys = keys.clone();
+    this.encodedKeys = new SerializableString[keys.length];
+    var distinctKeys = new HashSet<String>();
+    for (int i = 0; i < keys.length; i++) {
+      Assert.notBlank(keys[i], "Context key cannot be blank. '%s' given");
+      Assert.isTrue(
+          distinctKeys.add(keys[i]), String.format("Context key '%s' is duplicated", keys[i]));
+      encodedKeys[i] = encode(keys[i]);
+    }
+    this.valueCountMessage =
+        String.format("Activity '%s' expects %d context values", identifier, keys.length);
+  }
+
+  private static SerializableString encode(String value) {
+    var encoded = new SerializedString(value);
+    encoded.asQuotedUTF8();
+    return encoded;
+  }
+
+  final class DefinedValues implements ContextFactory {
+    private final Object[] values;
+
+    private DefinedValues(Object[] values) {
+      this.values = values;
+    }
+
+    SerializableString encodedMessage() {
+      return encodedMessage;
+    }
+
+    @Override
+    public void addEntries(Map<String, Object> entries) {
+      for (int i = 0; i < keys.length; i++) entries.put(keys[i], values[i]);
+    }
+
+    void write(JsonGenerator generator) throws IOException {
+      for (int i = 0; i < encodedKeys.length; i++) {
+        generator.writeFieldName(encodedKeys[i]);
+        generator.writeObject(values[i]);
+      }
+    }
+  }
+}
@@ -1,22 +1,77 @@
 package com.montealegreluis.activityfeed;
 
 import com.montealegreluis.assertions.Assert;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 
 public final class ActivityFeed {
   private final List<ActivityRecorder> recorders;
+  private final StaticContext context;
+  private final ActivityPublisher publisher;
+  private final AtomicLong sequence;
 
   public static ActivityFeed withLogging(Logger logger) {
     return new ActivityFeed(List.of(new ActivityLogger(logger)));
   }
 
+  /** A feed that writes activities as lines of JSON, without a logging backend */
+  public static ActivityFeed withJsonLines(OutputStream output) {
+    return new ActivityFeed(List.of(new JsonLinesRecorder(output)));
+  }
+
   public ActivityFeed(List<ActivityRecorder> recorders) {
-    Assert.notEmpty(recorders);
-    this.recorders = recorders;
+    this(recorders, StaticContext.EMPTY, new ActivityPublisher(), null);
+  }
+
+  /**
+   * A feed with the same recorders and static context that numbers the activities added to it, and
+   * to the feeds derived from it, in order
+   *
+   * <p>Numbers come from a counter shared by every thread adding activities, feeds without
+   * sequence numbers don't pay for it
+   */
+  public ActivityFeed withSequence() {
+    if (sequence != null) return this;
+    return new ActivityFeed(recorders, context, publisher, new AtomicLong());
+  }
+
+  /**
+   * A feed with the same recorders whose activities include the given entries, along with the
+   * entries of this feed
+   */
+  public ActivityFeed withContext(Map<String, Object> entries) {
+    return new ActivityFeed(recorders, context.with(entries), publisher, sequence);
+  }
+
+  /**
+   * Publishes every activity added to this feed, or to the feeds derived from it, to its
+   * subscribers
+   */
+  public ActivityPublisher publisher() {
+    return publisher;
   }
 
+  /** Activities are numbered in the order they're added, if the feed has sequence numbers */
   public void add(Activity activity) {
-    recorders.forEach(recorder -> recorder.record(activity));
+    activity.correlation().assertDistinctKeys(context);
+    if (sequence != null) activity.sequence(sequence.incrementAndGet());
+    if (context.isEmpty()) recorders.forEach(recorder -> recorder.record(activity));
+    else recorders.forEach(recorder -> recorder.record(activity, context));
+    publisher.record(activity, context);
+  }
+
+  private ActivityFeed(
+      List<ActivityRecorder> recorders,
+      StaticContext context,
+      ActivityPublisher publisher,
+      AtomicLong sequence) {
+    Assert.notEmpty(recorders);
+    this.recorders = recorders;
+    this.context = context;
+    this.publisher = publisher;
+    this.sequence = sequence;
   }
 }
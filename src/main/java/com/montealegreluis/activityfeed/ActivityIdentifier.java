@@ -0,0 +1,97 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.montealegreluis.assertions.Assert;
+import lombok.EqualsAndHashCode;
+import org.slf4j.event.Level;
+
+/**
+ * An identifier validated once, meant to be kept in a constant
+ *
+ * <pre>
+ * private static final ActivityIdentifier SEARCH = ActivityIdentifier.of("search-products");
+ * </pre>
+ *
+ * <p>Activities created with it skip the identifier validation, and encoders write its UTF-8
+ * bytes, escaped and encoded the first time they are needed, instead of encoding it every time.
+ * Identifiers created from strings on every call pay neither for interning nor for encoding
+ * values that may never be written, only for the identifier itself.
+ *
+ * <pre>
+ * feed.add(SEARCH.info("Search Products completed"));
+ * </pre>
+ */
+@EqualsAndHashCode(exclude = "encoded")
+public final class ActivityIdentifier {
+  private final String value;
+  private SerializableString encoded;
+
+  public static ActivityIdentifier of(String identifier) {
+    Assert.notBlank(identifier, "Activity identifier cannot be blank. '%s' given");
+    return new ActivityIdentifier(identifier);
+  }
+
+  public Activity info(String message) {
+    return info(message, null);
+  }
+
+  public Activity info(String message, ContextFactory factory) {
+    return Activity.withLevel(Level.INFO, this, message, factory);
+  }
+
+  public Activity warning(String message) {
+    return warning(message, null);
+  }
+
+  public Activity warning(String message, ContextFactory factory) {
+    return Activity.withLevel(Level.WARN, this, message, factory);
+  }
+
+  public Activity error(String message) {
+    return error(message, null);
+  }
+
+  public Activity error(String message, ContextFactory factory) {
+    return Activity.withLevel(Level.ERROR, this, message, factory);
+  }
+
+  public Activity debug(String message) {
+    return debug(message, null);
+  }
+
+  public Activity debug(String message, ContextFactory factory) {
+    return Activity.withLevel(Level.DEBUG, this, message, factory);
+  }
+
+  public Activity trace(String message) {
+    return trace(message, null);
+  }
+
+  public Activity trace(String message, ContextFactory factory) {
+    return Activity.withLevel(Level.TRACE, this, message, factory);
+  }
+
+  public String value() {
+    return value;
+  }
+
+  /** Racing threads may both create it, they get equal values either way */
+  SerializableString encoded() {
+    var encoded = this.encoded;
+    if (encoded == null) {
+      encoded = new SerializedString(value);
+      this.encoded = encoded;
+    }
+    return encoded;
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+
+  private ActivityIdentifier(String value) {
+    this.value = value;
+  }
+}
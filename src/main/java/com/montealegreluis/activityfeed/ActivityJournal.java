@@ -0,0 +1,365 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.montealegreluis.assertions.Assert;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends activities to a local file that each of its recorders reads at its own pace
+ *
+ * <p>Every recorder has a name, and a consumer thread that reads the journal sequentially and keeps
+ * its position in a checkpoint file named after it. Activities are recorded at least once: if the
+ * application stops, or a recorder fails, the consumer starts again from its last checkpoint.
+ * Producers only wait for the append to the journal, never for a recorder. Frames queued by
+ * producers while another one is appending are appended together by the next one, with a single
+ * write.
+ *
+ * <p>An activity a recorder fails to record is delivered again, up to a maximum amount of
+ * attempts, and then skipped. Frames that cannot be decoded are skipped right away. Skipped
+ * activities are counted per recorder. A checkpoint outside the current journal, or not followed
+ * by a frame header and the start of a JSON object, for instance because the journal was rotated,
+ * is ignored and the recorder starts again from the beginning.
+ *
+ * <p>When opened, frames partially written before a crash are discarded. Only the frames after the
+ * furthest checkpoint are scanned to find them.
+ *
+ * <p>Appends are not forced to the storage device. Activities survive the application crashing,
+ * since they are in the operating system page cache, but the ones appended right before a power
+ * loss or an operating system crash can be lost.
+ *
+ * <p>The journal is never truncated, it is meant to be rotated along with the application logs.
+ */
+public final class ActivityJournal implements ActivityRecorder, Closeable {
+  private static final int FRAME_HEADER_SIZE = 4;
+  private static final int BATCH_SIZE = 256;
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+  private static final int DEFAULT_MAX_DELIVERY_ATTEMPTS = 10;
+  private final Path directory;
+  private final JournalCodec codec;
+  private final FileChannel journal;
+  private final List<Consumer> consumers = new ArrayList<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private final AtomicInteger idleConsumers = new AtomicInteger();
+  private final Queue<ByteBuffer> queuedFrames = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final ByteBuffer[] batch = new ByteBuffer[BATCH_SIZE];
+  private final int maxDeliveryAttempts;
+  private IOException failure;
+  private volatile long end;
+  private volatile boolean running = true;
+
+  public ActivityJournal(Path directory, Map<String, ActivityRecorder> recorders)
+      throws IOException {
+    this(directory, recorders, new ObjectMapper());
+  }
+
+  /** Context values are serialized with the given mapper */
+  public ActivityJournal(
+      Path directory, Map<String, ActivityRecorder> recorders, ObjectMapper mapper)
+      throws IOException {
+    this(directory, recorders, mapper, DEFAULT_MAX_DELIVERY_ATTEMPTS);
+  }
+
+  /** Activities are skipped after a recorder fails to record them the given amount of times */
+  public ActivityJournal(
+      Path directory,
+      Map<String, ActivityRecorder> recorders,
+      ObjectMapper mapper,
+      int maxDeliveryAttempts)
+      throws IOException {
+    Assert.notNull(directory, "Journal directory cannot be null");
+    Assert.notNull(recorders, "Recorders cannot be null");
+    Assert.notNull(mapper, "Object mapper cannot be null");
+    Assert.isTrue(maxDeliveryAttempts > 0, "Maximum delivery attempts must be greater than zero");
+    this.maxDeliveryAttempts = maxDeliveryAttempts;
+    this.directory = Files.createDirectories(directory);
+    this.codec = new JournalCodec(mapper);
+    this.journal =
+        FileChannel.open(
+            directory.resolve("activities.journal"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    for (var recorder : recorders.entrySet()) {
+      consumers.add(new Consumer(recorder.getKey(), recorder.getValue(), mapper));
+    }
+    long size = journal.size();
+    long furthestCheckpoint = 0;
+    for (var consumer : consumers) {
+      consumer.offset = consumer.savedOffset(size);
+      furthestCheckpoint = Math.max(furthestCheckpoint, consumer.offset);
+    }
+    this.end = lastFrameBetween(furthestCheckpoint, size);
+    journal.truncate(end);
+    journal.position(end);
+    consumers.forEach(Consumer::start);
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var json = codec.encode(activity, context);
+    var frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + json.length).putInt(json.length).put(json);
+    queuedFrames.add(frame.flip());
+    append(frame);
+    if (idleConsumers.get() > 0) signalConsumers();
+  }
+
+  /** Position of the last activity the named recorder has acknowledged */
+  long checkpoint(String recorder) {
+    return consumer(recorder).offset;
+  }
+
+  /** Amount of activities the named recorder skipped, either undecodable or failing to record */
+  long skipped(String recorder) {
+    return consumer(recorder).skipped;
+  }
+
+  private Consumer consumer(String recorder) {
+    return consumers.stream()
+        .filter((consumer) -> consumer.recorderName.equals(recorder))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  /** Waits for the recorders to acknowledge the activities they already read */
+  @Override
+  public void close() throws IOException {
+    running = false;
+    signalConsumers();
+    for (var consumer : consumers) {
+      try {
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    journal.close();
+  }
+
+  /** The frame may have been appended already, along with others, by the previous producer */
+  private void append(ByteBuffer frame) {
+    appendLock.lock();
+    try {
+      if (failure != null) throw new UncheckedIOException(failure);
+      while (frame.hasRemaining()) {
+        int frames = 0;
+        while (frames < batch.length) {
+          var queued = queuedFrames.poll();
+          if (queued == null) break;
+          batch[frames++] = queued;
+        }
+        appendAll(frames);
+        Arrays.fill(batch, 0, frames, null);
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** The journal position is unknown after a failed write, so nothing else can be appended */
+  private void appendAll(int frames) {
+    try {
+      long remaining = 0;
+      for (int i = 0; i < frames; i++) remaining += batch[i].remaining();
+      while (remaining > 0) remaining -= journal.write(batch, 0, frames);
+      end = journal.position();
+    } catch (IOException e) {
+      failure = e;
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void signalConsumers() {
+    lock.lock();
+    try {
+      appended.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * End of the last complete frame after the given frame start, frames partially written before a
+   * crash, and any frame after them, are discarded
+   */
+  private long lastFrameBetween(long start, long limit) throws IOException {
+    long position = start;
+    var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    long bufferStart = limit;
+    while (position + FRAME_HEADER_SIZE <= limit) {
+      if (position < bufferStart || position + FRAME_HEADER_SIZE > bufferStart + buffer.limit()) {
+        bufferStart = position;
+        readAvailable(buffer.clear(), position);
+        buffer.flip();
+      }
+      int length = buffer.getInt((int) (position - bufferStart));
+      if (length < 0) break;
+      long next = position + FRAME_HEADER_SIZE + length;
+      if (next > limit) break;
+      position = next;
+    }
+    return position;
+  }
+
+  private void readAvailable(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (journal.read(buffer, position + buffer.position()) < 0) break;
+    }
+  }
+
+  /**
+   * A frame header fits at the offset, followed by the start of a JSON object. The frame itself may
+   * not fit within the limit, if it was partially written before a crash
+   */
+  private boolean isFrameStart(long offset, long limit) throws IOException {
+    if (offset == limit) return true;
+    if (offset + FRAME_HEADER_SIZE > limit) return false;
+    var header = ByteBuffer.allocate(FRAME_HEADER_SIZE + 1);
+    readAvailable(header, offset);
+    header.flip();
+    int length = header.getInt();
+    return length >= 0 && (!header.hasRemaining() || header.get() == '{');
+  }
+
+  private final class Consumer extends Thread {
+    private final String recorderName;
+    private final ActivityRecorder recorder;
+    private final JournalCodec codec;
+    private final Path checkpoint;
+    private volatile long offset;
+    private volatile long skipped;
+    private int failedAttempts;
+
+    private Consumer(String name, ActivityRecorder recorder, ObjectMapper mapper)
+        throws IOException {
+      super("activity-journal-" + name);
+      Assert.notBlank(name, "Recorder name cannot be blank. '%s' given");
+      Assert.notNull(recorder, "Recorder cannot be null");
+      this.recorderName = name;
+      this.recorder = recorder;
+      this.codec = new JournalCodec(mapper);
+      this.checkpoint = directory.resolve(name + ".checkpoint");
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (running || offset < end) {
+          if (offset >= end) awaitActivities();
+          else if (!consumeBatch() && !running) break;
+        }
+      } catch (IOException e) {
+        // The journal cannot be read, the checkpoint keeps the position to resume from
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /** Returns false if the recorder failed before acknowledging any activity */
+    private boolean consumeBatch() throws IOException, InterruptedException {
+      long position = offset;
+      var header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+      for (int i = 0; i < BATCH_SIZE && position < end; i++) {
+        readFully(header.clear(), position);
+        var frame = ByteBuffer.allocate(header.flip().getInt());
+        readFully(frame, position + FRAME_HEADER_SIZE);
+        if (!deliver(frame.array())) break;
+        position += FRAME_HEADER_SIZE + frame.capacity();
+      }
+      if (position == offset) return false;
+      saveCheckpoint(position);
+      return true;
+    }
+
+    /** Returns false if the activity has to be delivered again */
+    private boolean deliver(byte[] frame) throws InterruptedException {
+      JournalCodec.Entry entry;
+      try {
+        entry = codec.decode(frame);
+      } catch (Exception e) {
+        // A frame that cannot be decoded now will never be
+        skipped++;
+        return true;
+      }
+      try {
+        recorder.record(entry.activity, entry.context);
+        failedAttempts = 0;
+        return true;
+      } catch (Exception e) {
+        if (++failedAttempts >= maxDeliveryAttempts) {
+          failedAttempts = 0;
+          skipped++;
+          return true;
+        }
+        // The recorder is unavailable, the activity is delivered again once it is back
+        if (running) TimeUnit.SECONDS.sleep(1);
+        return false;
+      }
+    }
+
+    private long savedOffset(long size) throws IOException {
+      if (!Files.exists(checkpoint)) return 0;
+      try {
+        long saved = Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).trim());
+        return saved > 0 && saved <= size && isFrameStart(saved, size) ? saved : 0;
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+      while (buffer.hasRemaining()) {
+        int read = journal.read(buffer, position + buffer.position());
+        if (read < 0) throw new IOException("Unexpected end of activity journal");
+      }
+    }
+
+    private void saveCheckpoint(long position) throws IOException {
+      var temporary = directory.resolve(recorderName + ".checkpoint.tmp");
+      Files.writeString(temporary, Long.toString(position), StandardCharsets.UTF_8);
+      Files.move(
+          temporary,
+          checkpoint,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      offset = position;
+    }
+
+    private void awaitActivities() throws InterruptedException {
+      idleConsumers.incrementAndGet();
+      lock.lock();
+      try {
+        if (running && offset >= end) appended.await(100, TimeUnit.MILLISECONDS);
+      } finally {
+        lock.unlock();
+        idleConsumers.decrementAndGet();
+      }
+    }
+  }
+}
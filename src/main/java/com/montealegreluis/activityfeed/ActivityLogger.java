@@ -1,31 +1,75 @@
 package com.montealegreluis.activityfeed;
 
 import static net.logstash.logback.marker.Markers.appendEntries;
-import static org.slf4j.event.Level.*;
 
 import com.montealegreluis.assertions.Assert;
+import java.util.Map;
+import net.logstash.logback.marker.LogstashMarker;
 import org.slf4j.Logger;
 
 public final class ActivityLogger implements ActivityRecorder {
   private final Logger logger;
+  private final ContextBudget budget;
 
   public ActivityLogger(Logger logger) {
+    this(logger, ContextBudget.UNLIMITED);
+  }
+
+  /** Activity contexts are truncated to fit in the given budget before they're logged */
+  public ActivityLogger(Logger logger, ContextBudget budget) {
     Assert.notNull(logger, "Logger cannot be null");
+    Assert.notNull(budget, "Context budget cannot be null");
     this.logger = logger;
+    this.budget = budget;
   }
 
   @Override
   public void record(Activity activity) {
-    if (INFO.equals(activity.level()) && logger.isInfoEnabled()) {
-      logger.info(appendEntries(activity.context()), activity.message());
-    } else if (WARN.equals(activity.level()) && logger.isWarnEnabled()) {
-      logger.warn(appendEntries(activity.context()), activity.message());
-    } else if (ERROR.equals(activity.level()) && logger.isErrorEnabled()) {
-      logger.error(appendEntries(activity.context()), activity.message());
-    } else if (DEBUG.equals(activity.level()) && logger.isDebugEnabled()) {
-      logger.debug(appendEntries(activity.context()), activity.message());
-    } else if (TRACE.equals(activity.level()) && logger.isTraceEnabled()) {
-      logger.trace(appendEntries(activity.context()), activity.message());
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    switch (activity.level()) {
+      case INFO:
+        if (logger.isInfoEnabled()) {
+          logger.info(markerFor(activity, context), activity.message());
+        }
+        break;
+      case WARN:
+        if (logger.isWarnEnabled()) {
+          logger.warn(markerFor(activity, context), activity.message());
+        }
+        break;
+      case ERROR:
+        if (logger.isErrorEnabled()) {
+          logger.error(markerFor(activity, context), activity.message());
+        }
+        break;
+      case DEBUG:
+        if (logger.isDebugEnabled()) {
+          logger.debug(markerFor(activity, context), activity.message());
+        }
+        break;
+      case TRACE:
+        if (logger.isTraceEnabled()) {
+          logger.trace(markerFor(activity, context), activity.message());
+        }
+        break;
     }
   }
+
+  private LogstashMarker markerFor(Activity activity, StaticContext context) {
+    LogstashMarker marker = appendEntries(budget.apply(activity.context()));
+    marker.add(appendEntries(stampOf(activity)));
+    if (!activity.correlation().isEmpty()) marker.add(activity.correlation().marker());
+    if (!context.isEmpty()) marker.add(context.marker());
+    return marker;
+  }
+
+  /** Logging backends timestamp events when they're written, which may be well after creation */
+  static Map<String, Object> stampOf(Activity activity) {
+    if (activity.sequence() == 0) return Map.of("timestamp", activity.timestamp());
+    return Map.of("timestamp", activity.timestamp(), "sequence", activity.sequence());
+  }
 }
@@ -0,0 +1,171 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes recorded activities to subscribers that may come and go at runtime
+ *
+ * <p>Subscribers get an immutable {@link RecordedActivity}, which is only created if there is at
+ * least one subscriber. Every subscriber gets a bounded buffer, and activities are delivered in an
+ * executor as the subscriber requests them. When a buffer is full, activities are dropped as its
+ * overflow strategy indicates. Recording an activity never waits for a subscriber, nor for another
+ * thread subscribing or cancelling its subscription.
+ */
+public final class ActivityPublisher implements Flow.Publisher<RecordedActivity>, ActivityRecorder {
+  private static final AtomicInteger THREADS = new AtomicInteger();
+  private final List<ActivitySubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final Executor executor;
+
+  public enum Overflow {
+    /** Keeps the buffered activities and drops the new one */
+    DROP_NEWEST,
+    /** Drops the oldest buffered activity to make room for the new one */
+    DROP_OLDEST
+  }
+
+  /**
+   * Activities are delivered in daemon threads owned by this publisher, created as subscribers need
+   * them and discarded after a minute without activities
+   */
+  public ActivityPublisher() {
+    this(Executors.newCachedThreadPool(ActivityPublisher::deliveryThread));
+  }
+
+  /** Activities are delivered to subscribers in the given executor */
+  public ActivityPublisher(Executor executor) {
+    Assert.notNull(executor, "Executor cannot be null");
+    this.executor = executor;
+  }
+
+  /** Subscribes with a buffer of 1,024 activities that drops the newest ones when it is full */
+  @Override
+  public void subscribe(Flow.Subscriber<? super RecordedActivity> subscriber) {
+    subscribe(subscriber, Flow.defaultBufferSize() * 4, Overflow.DROP_NEWEST);
+  }
+
+  public void subscribe(
+      Flow.Subscriber<? super RecordedActivity> subscriber, int capacity, Overflow overflow) {
+    Assert.notNull(subscriber, "Subscriber cannot be null");
+    Assert.notNull(overflow, "Overflow strategy cannot be null");
+    Assert.isTrue(capacity > 0, "Capacity must be greater than zero");
+    var subscription = new ActivitySubscription(subscriber, capacity, overflow);
+    subscriptions.add(subscription);
+    subscriber.onSubscribe(subscription);
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    if (subscriptions.isEmpty()) return;
+    var recorded = RecordedActivity.of(activity, context);
+    for (var subscription : subscriptions) subscription.offer(recorded);
+  }
+
+  int subscribers() {
+    return subscriptions.size();
+  }
+
+  /** Demand of Long.MAX_VALUE or more is unbounded */
+  private static long saturatedAdd(long current, long added) {
+    long result = current + added;
+    return result < 0 ? Long.MAX_VALUE : result;
+  }
+
+  private static Thread deliveryThread(Runnable runnable) {
+    var thread = new Thread(runnable, "activity-publisher-" + THREADS.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private final class ActivitySubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super RecordedActivity> subscriber;
+    private final int capacity;
+    private final Overflow overflow;
+    private final Queue<RecordedActivity> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    private ActivitySubscription(
+        Flow.Subscriber<? super RecordedActivity> subscriber, int capacity, Overflow overflow) {
+      this.subscriber = subscriber;
+      this.capacity = capacity;
+      this.overflow = overflow;
+    }
+
+    private void offer(RecordedActivity activity) {
+      if (buffered.incrementAndGet() > capacity) {
+        if (overflow == Overflow.DROP_NEWEST || buffer.poll() == null) {
+          buffered.decrementAndGet();
+          return;
+        }
+        buffered.decrementAndGet();
+      }
+      buffer.offer(activity);
+      if (requested.get() > 0) scheduleDrain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        cancel();
+        subscriber.onError(
+            new IllegalArgumentException("Subscribers must request a positive amount, " + n));
+        return;
+      }
+      requested.accumulateAndGet(n, ActivityPublisher::saturatedAdd);
+      scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      subscriptions.remove(this);
+    }
+
+    private void scheduleDrain() {
+      if (pendingDrains.getAndIncrement() == 0) executor.execute(this::drain);
+    }
+
+    private void drain() {
+      int missed = 1;
+      do {
+        long delivered = 0;
+        long demand = requested.get();
+        while (delivered < demand && !cancelled) {
+          var activity = buffer.poll();
+          if (activity == null) break;
+          buffered.decrementAndGet();
+          deliver(activity);
+          delivered++;
+        }
+        if (delivered > 0) requested.addAndGet(-delivered);
+        if (cancelled) buffer.clear();
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void deliver(RecordedActivity activity) {
+      try {
+        subscriber.onNext(activity);
+      } catch (RuntimeException e) {
+        // Subscribers are not supposed to throw, they're removed if they do
+        cancel();
+      }
+    }
+  }
+}
@@ -2,4 +2,9 @@ package com.montealegreluis.activityfeed;
 
 public interface ActivityRecorder {
   void record(Activity activity);
+
+  /** Recorders ignore the static context of the feed unless they override this method */
+  default void record(Activity activity, StaticContext context) {
+    record(activity);
+  }
 }
@@ -0,0 +1,91 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.event.Level;
+
+/**
+ * Sheds low priority activities while its recorder is under pressure
+ *
+ * <p>The average time spent recording an activity is measured over windows of a fixed amount of
+ * activities. Whenever a window average goes above the pressure threshold the minimum level is
+ * raised one step (TRACE, DEBUG, INFO), and whenever it goes below the relief threshold it is
+ * lowered one step. Every transition is recorded as an activity.
+ */
+public final class AdaptiveLevelRecorder implements ActivityRecorder {
+  private static final Level[] LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO};
+  private final ActivityRecorder recorder;
+  private final long pressureThreshold;
+  private final long reliefThreshold;
+  private final int windowSize;
+  private final AtomicLong samples = new AtomicLong();
+  private final LongAdder elapsed = new LongAdder();
+  private volatile int minimumLevel;
+
+  public AdaptiveLevelRecorder(ActivityRecorder recorder) {
+    this(recorder, Duration.ofMillis(1), Duration.ofNanos(250_000), 1_000);
+  }
+
+  public AdaptiveLevelRecorder(
+      ActivityRecorder recorder,
+      Duration pressureThreshold,
+      Duration reliefThreshold,
+      int windowSize) {
+    Assert.notNull(recorder, "Recorder cannot be null");
+    Assert.notNull(pressureThreshold, "Pressure threshold cannot be null");
+    Assert.notNull(reliefThreshold, "Relief threshold cannot be null");
+    Assert.isTrue(
+        reliefThreshold.compareTo(pressureThreshold) < 0,
+        "Relief threshold must be lower than pressure threshold");
+    Assert.isTrue(windowSize > 0, "Window size must be greater than zero");
+    this.recorder = recorder;
+    this.pressureThreshold = pressureThreshold.toNanos();
+    this.reliefThreshold = reliefThreshold.toNanos();
+    this.windowSize = windowSize;
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    if (activity.level().toInt() < LEVELS[minimumLevel].toInt()) return;
+
+    long start = System.nanoTime();
+    recorder.record(activity, context);
+    elapsed.add(System.nanoTime() - start);
+
+    if (samples.incrementAndGet() % windowSize == 0) adjustMinimumLevel(context);
+  }
+
+  Level minimumLevel() {
+    return LEVELS[minimumLevel];
+  }
+
+  /** Transitions are recorded with the static context of the activity that triggered them */
+  private synchronized void adjustMinimumLevel(StaticContext context) {
+    long averageLatency = elapsed.sumThenReset() / windowSize;
+    if (averageLatency > pressureThreshold && minimumLevel < LEVELS.length - 1) {
+      minimumLevel++;
+      recorder.record(transition("raised", averageLatency), context);
+    } else if (averageLatency < reliefThreshold && minimumLevel > 0) {
+      minimumLevel--;
+      recorder.record(transition("lowered", averageLatency), context);
+    }
+  }
+
+  private Activity transition(String direction, long averageLatency) {
+    var level = LEVELS[minimumLevel].name();
+    return Activity.warning(
+        "activity-level-" + direction,
+        "Minimum activity level was " + direction,
+        (context) -> {
+          context.put("minimumLevel", level);
+          context.put("averageLatencyNanos", averageLatency);
+        });
+  }
+}
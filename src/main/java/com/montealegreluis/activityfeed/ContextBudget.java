@@ -0,0 +1,148 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limits the size of an activity context
+ *
+ * <p>Strings longer than the maximum length, and collections or maps with more than the maximum
+ * amount of elements are truncated. Once the context reaches the maximum amount of bytes, the
+ * remaining entries are omitted. Truncated values include a marker with their original size.
+ *
+ * <p>Bytes are the UTF-8 length of keys and strings, plus quotes and separators, and a fixed size
+ * for any other value. Characters escaped in JSON are counted as they are, before escaping.
+ *
+ * <p>Values are walked only up to their limits, so oversized values are never copied completely.
+ * Objects other than strings, maps, collections and arrays are kept as they are. So are exception
+ * contexts, whose stack traces are only read if the activity is serialized.
+ */
+public final class ContextBudget {
+  public static final ContextBudget UNLIMITED =
+      new ContextBudget(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  /** 256 KB, 10,000 elements per collection or map, and 32,768 characters per string */
+  public static final ContextBudget DEFAULT = new ContextBudget(256 * 1024, 10_000, 32_768);
+
+  static final String TRUNCATED = "truncated";
+  private static final int SCALAR_SIZE = 8;
+  private final int maxBytes;
+  private final int maxElements;
+  private final int maxStringLength;
+
+  public ContextBudget(int maxBytes, int maxElements, int maxStringLength) {
+    Assert.isTrue(
+        maxBytes > 0 && maxElements > 0 && maxStringLength > 0,
+        "Context budget limits must be greater than zero");
+    this.maxBytes = maxBytes;
+    this.maxElements = maxElements;
+    this.maxStringLength = maxStringLength;
+  }
+
+  public boolean isUnlimited() {
+    return maxBytes == Integer.MAX_VALUE
+        && maxElements == Integer.MAX_VALUE
+        && maxStringLength == Integer.MAX_VALUE;
+  }
+
+  /** A copy of the given context within this budget, or the same context if it is unlimited */
+  public Map<String, Object> apply(Map<String, Object> context) {
+    if (isUnlimited()) return context;
+    return truncateMap(context, new Allowance(maxBytes));
+  }
+
+  int maxBytes() {
+    return maxBytes;
+  }
+
+  /** Surrogates take 2 bytes each, so a surrogate pair takes 4 */
+  static int utf8Length(char character) {
+    if (character < 0x80) return 1;
+    if (character < 0x800 || Character.isSurrogate(character)) return 2;
+    return 3;
+  }
+
+  private Object truncate(Object value, Allowance allowance) {
+    if (value instanceof CharSequence) return truncateString(value.toString(), allowance);
+    if (value instanceof ExceptionContext) {
+      allowance.bytes -= SCALAR_SIZE;
+      return value;
+    }
+    if (value instanceof Map) return truncateMap((Map<?, ?>) value, allowance);
+    if (value instanceof Collection) return truncateCollection((Collection<?>) value, allowance);
+    if (value instanceof Object[]) {
+      return truncateCollection(Arrays.asList((Object[]) value), allowance);
+    }
+    allowance.bytes -= SCALAR_SIZE;
+    return value;
+  }
+
+  /** Walks the string only up to the maximum length or the bytes left, whichever comes first */
+  private String truncateString(String value, Allowance allowance) {
+    int limit = Math.min(value.length(), maxStringLength);
+    long available = Math.max(allowance.bytes, 0);
+    int length = 0;
+    long bytes = 0;
+    while (length < limit) {
+      int size = utf8Length(value.charAt(length));
+      if (bytes + size > available) break;
+      bytes += size;
+      length++;
+    }
+    boolean splitsPair = length > 0 && Character.isHighSurrogate(value.charAt(length - 1));
+    if (length < value.length() && splitsPair) {
+      length--;
+      bytes -= 2;
+    }
+    allowance.bytes -= bytes + 2;
+    if (length == value.length()) return value;
+    return value.substring(0, length) + "... (" + value.length() + " characters)";
+  }
+
+  private Map<String, Object> truncateMap(Map<?, ?> map, Allowance allowance) {
+    Map<String, Object> truncated = new LinkedHashMap<>();
+    int elements = 0;
+    for (var entry : map.entrySet()) {
+      if (elements == maxElements || allowance.bytes <= 0) {
+        truncated.put(TRUNCATED, map.size() + " entries");
+        break;
+      }
+      var key = String.valueOf(entry.getKey());
+      allowance.bytes -= utf8Length(key) + 3;
+      truncated.put(key, truncate(entry.getValue(), allowance));
+      elements++;
+    }
+    return truncated;
+  }
+
+  private Collection<Object> truncateCollection(Collection<?> collection, Allowance allowance) {
+    var truncated = new ArrayList<>((int) Math.min(collection.size(), maxElements + 1L));
+    int elements = 0;
+    for (var element : collection) {
+      if (elements == maxElements || allowance.bytes <= 0) {
+        truncated.add("... (" + collection.size() + " elements)");
+        break;
+      }
+      truncated.add(truncate(element, allowance));
+      elements++;
+    }
+    return truncated;
+  }
+
+  private static long utf8Length(String value) {
+    long length = 0;
+    for (int i = 0; i < value.length(); i++) length += utf8Length(value.charAt(i));
+    return length;
+  }
+
+  private static final class Allowance {
+    private long bytes;
+
+    private Allowance(long bytes) {
+      this.bytes = bytes;
+    }
+  }
+}
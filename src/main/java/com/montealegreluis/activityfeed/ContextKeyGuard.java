@@ -0,0 +1,118 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prevents activities from producing an unbounded amount of context keys
+ *
+ * <p>The first keys seen for every identifier are accepted, up to a maximum. Any other key is
+ * folded into an <code>_extra</code> entry as a list of key-value pairs, so log indexes don't map a
+ * new field for every user id or URL used as a key. A context entry named <code>_extra</code> is
+ * always folded too, so it is never overwritten. The first time an identifier goes over the
+ * maximum, a warning activity is recorded.
+ *
+ * <p>Keys are tracked for up to 10,000 identifiers. Activities with any other identifier share a
+ * single set of keys, so the amount of distinct keys stays bounded either way.
+ *
+ * <p>Activities created from an {@link ActivityDefinition} have a fixed set of keys and are not
+ * checked.
+ */
+public final class ContextKeyGuard implements ActivityRecorder {
+  static final String EXTRA = "_extra";
+  private static final int MAX_IDENTIFIERS = 10_000;
+  private final ActivityRecorder recorder;
+  private final int maxKeys;
+  private final Map<ActivityIdentifier, KnownKeys> knownKeys = new ConcurrentHashMap<>();
+  private final KnownKeys untrackedKeys = new KnownKeys();
+
+  public ContextKeyGuard(ActivityRecorder recorder) {
+    this(recorder, 100);
+  }
+
+  public ContextKeyGuard(ActivityRecorder recorder, int maxKeysPerIdentifier) {
+    Assert.notNull(recorder, "Recorder cannot be null");
+    Assert.isTrue(maxKeysPerIdentifier > 0, "Maximum amount of keys must be greater than zero");
+    this.recorder = recorder;
+    this.maxKeys = maxKeysPerIdentifier;
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    recorder.record(guard(activity, context), context);
+  }
+
+  /** The context factory runs once, the guarded activity is a copy with the resulting entries */
+  private Activity guard(Activity activity, StaticContext context) {
+    if (activity.definedValues() != null) return activity;
+
+    Map<String, Object> entries = new LinkedHashMap<>();
+    activity.addEntries(entries);
+    var keys = knownKeysFor(activity.identifier());
+    Map<String, Object> guarded = new LinkedHashMap<>();
+    List<Map<String, Object>> extra = null;
+    boolean exceeded = false;
+    for (var entry : entries.entrySet()) {
+      var key = entry.getKey();
+      boolean reserved = EXTRA.equals(key);
+      if (!reserved && keys.accept(key)) {
+        guarded.put(key, entry.getValue());
+        continue;
+      }
+      exceeded |= !reserved;
+      if (extra == null) extra = new ArrayList<>();
+      Map<String, Object> pair = new LinkedHashMap<>();
+      pair.put("key", key);
+      pair.put("value", entry.getValue());
+      extra.add(pair);
+    }
+    if (extra != null) guarded.put(EXTRA, extra);
+    if (exceeded && keys.warned.compareAndSet(false, true)) {
+      recorder.record(keysExceeded(activity), context);
+    }
+    return activity.withEntries(guarded);
+  }
+
+  private KnownKeys knownKeysFor(ActivityIdentifier identifier) {
+    var keys = knownKeys.get(identifier);
+    if (keys != null) return keys;
+    // identifiers are expected to be constants, this prevents unbounded growth if they're not
+    if (knownKeys.size() >= MAX_IDENTIFIERS) return untrackedKeys;
+    return knownKeys.computeIfAbsent(identifier, (ignored) -> new KnownKeys());
+  }
+
+  private Activity keysExceeded(Activity activity) {
+    var identifier = activity.identifier().value();
+    return Activity.warning(
+        "context-keys-exceeded",
+        "Activity context went over its maximum amount of keys",
+        (context) -> {
+          context.put("activityIdentifier", identifier);
+          context.put("maxKeys", maxKeys);
+        });
+  }
+
+  private final class KnownKeys {
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean warned = new AtomicBoolean();
+
+    /** Concurrent activities may go slightly over the maximum, but never keep growing */
+    private boolean accept(String key) {
+      if (keys.contains(key)) return true;
+      if (keys.size() >= maxKeys) return false;
+      keys.add(key);
+      return true;
+    }
+  }
+}
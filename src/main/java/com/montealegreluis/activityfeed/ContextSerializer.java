@@ -2,19 +2,31 @@ package com.montealegreluis.activityfeed;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
 import com.montealegreluis.assertions.Assert;
 import io.vavr.control.Try;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Converts objects to context maps. It is immutable and thread-safe, a single instance is meant to
+ * be shared by the whole application
+ */
 public final class ContextSerializer {
   private final ObjectMapper mapper;
+  private final ObjectWriter writer;
+  private final ObjectReader reader;
+  private final ContextBudget budget;
 
   /**
-   * Some features on the mapper are enabled by default
+   * Serializers are configured on a copy of the given mapper, modules registered on it afterwards
+   * are not used. Some features on the copy are enabled by default
    *
    * <ul>
    *   <li>Visibility is set to any
@@ -22,11 +34,46 @@ public final class ContextSerializer {
    *   <li>Objects without properties will not produce an error
    */
   public ContextSerializer(ObjectMapper mapper) {
+    this(mapper, ContextBudget.UNLIMITED);
+  }
+
+  /**
+   * Values are truncated to fit in the given budget. Serialization stops as soon as the UTF-8
+   * encoded JSON of a value goes over the maximum amount of bytes, and a marker with its type is
+   * returned instead
+   */
+  public ContextSerializer(ObjectMapper mapper, ContextBudget budget) {
     Assert.notNull(mapper, "Object mapper cannot be null");
+    Assert.notNull(budget, "Context budget cannot be null");
+    this.budget = budget;
     this.mapper =
         mapper
+            .copy()
             .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
             .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    this.writer = this.mapper.writer();
+    this.reader = this.mapper.readerFor(LinkedHashMap.class);
+  }
+
+  /**
+   * Resolves and caches the serializers of the given types, including the ones for masked values,
+   * so the first activities with those types don't pay for Jackson's introspection
+   */
+  public ContextSerializer warmUp(Class<?>... types) {
+    Assert.notNull(types, "Types cannot be null");
+    var provider = mapper.getSerializerProviderInstance();
+    for (var type : types) {
+      // Writers look up root values as typed serializers, which are cached separately
+      Try.of(() -> provider.findTypedValueSerializer(type, true, null))
+          .getOrElseThrow((cause) -> new SerializerFailure(type, cause));
+    }
+    toContextMap(Map.of());
+    return this;
+  }
+
+  /** Amount of serializers resolved so far */
+  int cachedSerializers() {
+    return ((DefaultSerializerProvider) mapper.getSerializerProvider()).cachedSerializersCount();
   }
 
   public Map<String, Object> toContextMap(Object value) {
@@ -35,8 +82,56 @@ public final class ContextSerializer {
   }
 
   @SuppressWarnings("unchecked")
-  private Map<String, Object> toMap(Object value) throws JsonProcessingException {
-    String json = mapper.writeValueAsString(value);
-    return (Map<String, Object>) mapper.readValue(json, LinkedHashMap.class);
+  private Map<String, Object> toMap(Object value) throws IOException {
+    if (budget.isUnlimited()) {
+      String json = writer.writeValueAsString(value);
+      return (Map<String, Object>) reader.readValue(json);
+    }
+    var json = new BoundedWriter(budget.maxBytes());
+    try {
+      writer.writeValue(json, value);
+    } catch (IOException e) {
+      if (!json.exhausted) throw e;
+      Map<String, Object> marker = new LinkedHashMap<>();
+      marker.put(ContextBudget.TRUNCATED, "over " + budget.maxBytes() + " bytes");
+      marker.put("type", value.getClass().getName());
+      return marker;
+    }
+    return budget.apply((Map<String, Object>) reader.readValue(json.toString()));
+  }
+
+  /** Counts the UTF-8 length of the JSON written to it, without encoding it */
+  private static final class BoundedWriter extends Writer {
+    private final StringBuilder json = new StringBuilder();
+    private final int limit;
+    private long bytes;
+    private boolean exhausted;
+
+    private BoundedWriter(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(char[] characters, int offset, int length) throws IOException {
+      for (int i = offset; i < offset + length; i++) {
+        bytes += ContextBudget.utf8Length(characters[i]);
+      }
+      if (bytes > limit) {
+        exhausted = true;
+        throw new IOException("Value is over " + limit + " bytes");
+      }
+      json.append(characters, offset, length);
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public String toString() {
+      return json.toString();
+    }
   }
 }
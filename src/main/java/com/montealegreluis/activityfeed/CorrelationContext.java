@@ -0,0 +1,121 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import net.logstash.logback.marker.LogstashMarker;
+import net.logstash.logback.marker.Markers;
+
+/**
+ * Immutable snapshot of request scoped entries, like request or trace IDs
+ *
+ * <pre>
+ * CorrelationContext.current().with("requestId", requestId).run(() -> handle(request));
+ * </pre>
+ *
+ * <p>Activities keep a reference to the snapshot that is current in the thread that creates them,
+ * so its entries are recorded even if the activity is recorded by another thread. Adding an entry
+ * creates a new snapshot pointing to the previous one, entries are never copied.
+ *
+ * <p>Its entries are written next to the static context entries of a feed, so activities with a
+ * correlation key that the feed also uses as a static context key cannot be added to it.
+ */
+public final class CorrelationContext {
+  private static final CorrelationContext EMPTY = new CorrelationContext(null, null, null);
+  private static final ThreadLocal<CorrelationContext> CURRENT =
+      ThreadLocal.withInitial(() -> EMPTY);
+  private static final String RESERVED_KEY_MESSAGE =
+      "Correlation key cannot be any of " + Activity.RESERVED_KEYS;
+  private final CorrelationContext parent;
+  private final String key;
+  private final String value;
+  private volatile Map<String, String> entries;
+  private volatile LogstashMarker marker;
+  private volatile StaticContext distinctFrom;
+
+  public static CorrelationContext current() {
+    return CURRENT.get();
+  }
+
+  public static CorrelationContext empty() {
+    return EMPTY;
+  }
+
+  public CorrelationContext with(String key, String value) {
+    Assert.notBlank(key, "Correlation key cannot be blank. '%s' given");
+    Assert.notNull(value, "Correlation value cannot be null");
+    Assert.isTrue(!Activity.RESERVED_KEYS.contains(key), RESERVED_KEY_MESSAGE);
+    return new CorrelationContext(this, key, value);
+  }
+
+  /** Runs the action with this snapshot as the current one */
+  public void run(Runnable action) {
+    var previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      action.run();
+    } finally {
+      CURRENT.set(previous);
+    }
+  }
+
+  /** Calls the action with this snapshot as the current one */
+  public <T> T call(Callable<T> action) throws Exception {
+    var previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return action.call();
+    } finally {
+      CURRENT.set(previous);
+    }
+  }
+
+  /** Binds this snapshot to an action that will run in another thread */
+  public Runnable wrap(Runnable action) {
+    return () -> run(action);
+  }
+
+  /** Binds this snapshot to an action that will run in another thread */
+  public <T> Callable<T> wrap(Callable<T> action) {
+    return () -> call(action);
+  }
+
+  public boolean isEmpty() {
+    return this == EMPTY;
+  }
+
+  /** Entries of this snapshot, materialized the first time they're needed */
+  public Map<String, String> entries() {
+    if (entries == null) {
+      Map<String, String> all = new LinkedHashMap<>();
+      if (parent != null) all.putAll(parent.entries());
+      if (key != null) all.put(key, value);
+      entries = Collections.unmodifiableMap(all);
+    }
+    return entries;
+  }
+
+  /** The last static context checked is kept, so feeds check each snapshot once */
+  void assertDistinctKeys(StaticContext context) {
+    if (this == EMPTY || context.isEmpty() || distinctFrom == context) return;
+    for (var key : entries().keySet()) {
+      Assert.isTrue(
+          !context.entries().containsKey(key),
+          String.format("Correlation key '%s' is already a static context key", key));
+    }
+    distinctFrom = context;
+  }
+
+  LogstashMarker marker() {
+    if (marker == null) marker = Markers.appendEntries(entries());
+    return marker;
+  }
+
+  private CorrelationContext(CorrelationContext parent, String key, String value) {
+    this.parent = parent;
+    this.key = key;
+    this.value = value;
+  }
+}
@@ -0,0 +1,117 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exception information that is only extracted when it is read or serialized
+ *
+ * <p>Serializers write its stack frames directly, without building a map or a list of strings
+ * first. Activities discarded before they're recorded never read the stack trace.
+ */
+@JsonSerialize(using = ExceptionContext.Serializer.class)
+final class ExceptionContext extends AbstractMap<String, Object> {
+  private static final int MAX_CALL_SITE_FRAMES = 32;
+  private static final StackWalker WALKER = StackWalker.getInstance();
+  private static final Set<String> INTERNAL_CLASSES =
+      Set.of(
+          ExceptionContext.class.getName(),
+          ExceptionContextFactory.class.getName(),
+          ActivityBuilder.class.getName());
+  private final Throwable exception;
+  private final StackWalker.StackFrame[] callSite;
+  private Map<String, Object> entries;
+
+  static ExceptionContext of(Throwable exception) {
+    return new ExceptionContext(exception, null);
+  }
+
+  /** The frames of the current thread stack, up to the first 32, skipping this library's frames */
+  static ExceptionContext callSite() {
+    return new ExceptionContext(
+        null,
+        WALKER.walk(
+            (frames) ->
+                frames
+                    .dropWhile((frame) -> INTERNAL_CLASSES.contains(frame.getClassName()))
+                    .limit(MAX_CALL_SITE_FRAMES)
+                    .toArray(StackWalker.StackFrame[]::new)));
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (entries == null) entries = toMap();
+    return entries.entrySet();
+  }
+
+  void write(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    if (exception != null) generator.writeStringField("message", exception.getMessage());
+    var frames = frames();
+    if (frames.length > 0) {
+      generator.writeStringField("class", frames[0].getClassName());
+      generator.writeNumberField("line", frames[0].getLineNumber());
+      generator.writeStringField("file", frames[0].getFileName());
+    }
+    generator.writeArrayFieldStart("trace");
+    for (var frame : frames) generator.writeString(frame.toString());
+    generator.writeEndArray();
+    if (exception != null && exception.getCause() != null) {
+      generator.writeFieldName("previous");
+      of(exception.getCause()).write(generator);
+    }
+    generator.writeEndObject();
+  }
+
+  private Map<String, Object> toMap() {
+    Map<String, Object> context = new LinkedHashMap<>();
+    if (exception != null) context.put("message", exception.getMessage());
+    var frames = frames();
+    if (frames.length > 0) {
+      context.put("class", frames[0].getClassName());
+      context.put("line", frames[0].getLineNumber());
+      context.put("file", frames[0].getFileName());
+    }
+    List<String> trace = new ArrayList<>(frames.length);
+    for (var frame : frames) trace.add(frame.toString());
+    context.put("trace", trace);
+    if (exception != null && exception.getCause() != null) {
+      context.put("previous", of(exception.getCause()));
+    }
+    return context;
+  }
+
+  private StackTraceElement[] frames() {
+    if (exception != null) return exception.getStackTrace();
+    var frames = new StackTraceElement[callSite.length];
+    for (int i = 0; i < callSite.length; i++) frames[i] = callSite[i].toStackTraceElement();
+    return frames;
+  }
+
+  private ExceptionContext(Throwable exception, StackWalker.StackFrame[] callSite) {
+    this.exception = exception;
+    this.callSite = callSite;
+  }
+
+  static final class Serializer extends StdSerializer<ExceptionContext> {
+    Serializer() {
+      super(ExceptionContext.class);
+    }
+
+    @Override
+    public void serialize(
+        ExceptionContext context, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      context.write(generator);
+    }
+  }
+}
@@ -1,30 +1,26 @@
 package com.montealegreluis.activityfeed;
 
-import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ExceptionContextFactory {
+  /**
+   * Its message, the class, line and file where it was thrown, its stack trace, and the same
+   * information for its cause as "previous"
+   *
+   * <p>The stack trace is only read when the context is read or serialized
+   */
   public static Map<String, Object> contextFrom(Throwable exception) {
-    Map<String, Object> context = new LinkedHashMap<>();
-    context.put("message", exception.getMessage());
-    StackTraceElement[] stackTrace = exception.getStackTrace();
-    if (stackTrace.length > 0) {
-      context.put("class", stackTrace[0].getClassName());
-      context.put("line", stackTrace[0].getLineNumber());
-      context.put("file", stackTrace[0].getFileName());
-    }
-    List<String> trace =
-        Arrays.stream(stackTrace).map(StackTraceElement::toString).collect(Collectors.toList());
-    context.put("trace", trace);
-    if (exception.getCause() != null) {
-      context.put("previous", contextFrom(exception.getCause()));
-    }
-    return context;
+    return ExceptionContext.of(exception);
+  }
+
+  /**
+   * The class, line and file where this method was called, along with the frames that led to it,
+   * without creating an exception
+   */
+  public static Map<String, Object> callSite() {
+    return ExceptionContext.callSite();
   }
 }
@@ -0,0 +1,103 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vavr.control.Try;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.event.Level;
+
+/** Converts activities, along with their static and correlation contexts, to and from JSON */
+final class JournalCodec {
+  private final ObjectMapper mapper;
+  private StaticContext lastContext = StaticContext.EMPTY;
+
+  JournalCodec(ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  byte[] encode(Activity activity, StaticContext context) {
+    return Try.of(() -> toBytes(activity, context))
+        .getOrElseThrow((cause) -> new SerializerFailure(activity, cause));
+  }
+
+  Entry decode(byte[] frame) throws Exception {
+    var json = (Map<?, ?>) mapper.readValue(frame, LinkedHashMap.class);
+    var correlation = CorrelationContext.empty();
+    for (var entry : ((Map<?, ?>) json.get("correlation")).entrySet()) {
+      correlation = correlation.with((String) entry.getKey(), (String) entry.getValue());
+    }
+    var decoded =
+        correlation.call(
+            () ->
+                Activity.withLevel(
+                    Level.valueOf((String) json.get("level")),
+                    (String) json.get("identifier"),
+                    (String) json.get("message"),
+                    (context) -> putAll(context, (Map<?, ?>) json.get("context"))));
+    var activity =
+        decoded.stamped(longValue(json.get("timestamp")), longValue(json.get("sequence")));
+    return new Entry(activity, staticContextFrom((Map<?, ?>) json.get("static")));
+  }
+
+  private StaticContext staticContextFrom(Map<?, ?> entries) {
+    if (entries.isEmpty()) return StaticContext.EMPTY;
+    if (!entries.equals(lastContext.entries())) {
+      Map<String, Object> context = new LinkedHashMap<>();
+      putAll(context, entries);
+      lastContext = StaticContext.EMPTY.with(context);
+    }
+    return lastContext;
+  }
+
+  /** Frames written before activities had a timestamp and a sequence have neither */
+  private static long longValue(Object value) {
+    return value == null ? 0 : ((Number) value).longValue();
+  }
+
+  private static void putAll(Map<String, Object> context, Map<?, ?> entries) {
+    entries.forEach((key, value) -> context.put((String) key, value));
+  }
+
+  private byte[] toBytes(Activity activity, StaticContext context) throws IOException {
+    try (var bytes = new ByteArrayBuilder();
+        var generator = mapper.getFactory().createGenerator(bytes, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeStringField("level", activity.level().name());
+      generator.writeStringField("identifier", activity.identifier().value());
+      generator.writeStringField("message", activity.message());
+      generator.writeNumberField("timestamp", activity.timestamp());
+      generator.writeNumberField("sequence", activity.sequence());
+      Map<String, Object> entries = new LinkedHashMap<>();
+      activity.addEntries(entries);
+      writeMap("context", entries, generator);
+      writeMap("correlation", activity.correlation().entries(), generator);
+      writeMap("static", context.entries(), generator);
+      generator.writeEndObject();
+      generator.flush();
+      return bytes.toByteArray();
+    }
+  }
+
+  private void writeMap(String name, Map<String, ?> entries, JsonGenerator generator)
+      throws IOException {
+    generator.writeObjectFieldStart(name);
+    for (var entry : entries.entrySet()) {
+      generator.writeObjectField(entry.getKey(), entry.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  static final class Entry {
+    final Activity activity;
+    final StaticContext context;
+
+    private Entry(Activity activity, StaticContext context) {
+      this.activity = activity;
+      this.context = context;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.montealegreluis.assertions.Assert;
+import io.vavr.control.Try;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.event.Level;
+
+/**
+ * Writes activities as JSON objects with the same shape the logstash encoder produces for the
+ * {@link ActivityLogger}
+ *
+ * <pre>
+ * {"level":"INFO","message":"A message","timestamp":1666200000000000000,"sequence":1,
+ *  "context":{"identifier":"an-identifier"}}
+ * </pre>
+ *
+ * <p>The timestamp is in nanoseconds since the epoch, and the sequence is only written for
+ * activities added to a feed
+ */
+public final class JsonActivityEncoder {
+  private static final SerializableString LEVEL = new SerializedString("level");
+  private static final SerializableString MESSAGE = new SerializedString("message");
+  private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+  private static final SerializableString SEQUENCE = new SerializedString("sequence");
+  private static final SerializableString CONTEXT = new SerializedString("context");
+  private static final SerializableString IDENTIFIER = new SerializedString("identifier");
+  private static final Map<Level, SerializableString> LEVELS = new EnumMap<>(Level.class);
+
+  static {
+    for (var level : Level.values()) LEVELS.put(level, new SerializedString(level.name()));
+  }
+
+  private final JsonFactory factory;
+  private final ContextBudget budget;
+
+  public JsonActivityEncoder() {
+    this(new ObjectMapper());
+  }
+
+  /** Context values are serialized with the given mapper */
+  public JsonActivityEncoder(ObjectMapper mapper) {
+    this(mapper, ContextBudget.UNLIMITED);
+  }
+
+  /** Activity contexts are truncated to fit in the given budget before they're serialized */
+  public JsonActivityEncoder(ObjectMapper mapper, ContextBudget budget) {
+    Assert.notNull(mapper, "Object mapper cannot be null");
+    Assert.notNull(budget, "Context budget cannot be null");
+    this.factory = mapper.getFactory();
+    this.budget = budget;
+  }
+
+  public byte[] encode(Activity activity) {
+    return encode(activity, StaticContext.EMPTY);
+  }
+
+  /** Entries in the static context are added next to the activity's level and message */
+  public byte[] encode(Activity activity, StaticContext context) {
+    return Try.of(() -> toBytes(activity, context))
+        .getOrElseThrow((cause) -> new SerializerFailure(activity, cause));
+  }
+
+  public void encode(Activity activity, JsonGenerator generator) throws IOException {
+    encode(activity, StaticContext.EMPTY, generator);
+  }
+
+  public void encode(Activity activity, StaticContext context, JsonGenerator generator)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeFieldName(LEVEL);
+    generator.writeString(LEVELS.get(activity.level()));
+    var definedValues = activity.definedValues();
+    generator.writeFieldName(MESSAGE);
+    if (definedValues != null) generator.writeString(definedValues.encodedMessage());
+    else generator.writeString(activity.message());
+    generator.writeFieldName(TIMESTAMP);
+    generator.writeNumber(activity.timestamp());
+    if (activity.sequence() > 0) {
+      generator.writeFieldName(SEQUENCE);
+      generator.writeNumber(activity.sequence());
+    }
+    generator.writeFieldName(CONTEXT);
+    generator.writeStartObject();
+    generator.writeFieldName(IDENTIFIER);
+    generator.writeString(activity.identifier().encoded());
+    if (definedValues != null && budget.isUnlimited()) definedValues.write(generator);
+    else writeEntries(activity, generator);
+    generator.writeEndObject();
+    for (var entry : activity.correlation().entries().entrySet()) {
+      generator.writeStringField(entry.getKey(), entry.getValue());
+    }
+    context.write(generator);
+    generator.writeEndObject();
+  }
+
+  private void writeEntries(Activity activity, JsonGenerator generator) throws IOException {
+    Map<String, Object> context = new LinkedHashMap<>();
+    activity.addEntries(context);
+    for (var entry : budget.apply(context).entrySet()) {
+      generator.writeObjectField(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private byte[] toBytes(Activity activity, StaticContext context) throws IOException {
+    try (var bytes = new ByteArrayBuilder();
+        var generator = factory.createGenerator(bytes, JsonEncoding.UTF8)) {
+      encode(activity, context, generator);
+      generator.flush();
+      return bytes.toByteArray();
+    }
+  }
+}
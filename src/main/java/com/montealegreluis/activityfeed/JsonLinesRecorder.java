@@ -0,0 +1,50 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes every activity as a line of JSON to an output stream, usually the standard output
+ *
+ * <p>It needs no logging backend, which makes it a good fit for command line tools, short-lived
+ * jobs and native images. Context values are written with Jackson's object mapper, which only
+ * introspects classes other than strings, numbers, booleans, maps, lists and exceptions.
+ */
+public final class JsonLinesRecorder implements ActivityRecorder {
+  private static final byte[] LINE_FEED = {'\n'};
+  private final Object lock = new Object();
+  private final OutputStream output;
+  private final JsonActivityEncoder encoder;
+
+  public JsonLinesRecorder(OutputStream output) {
+    this(output, new JsonActivityEncoder());
+  }
+
+  public JsonLinesRecorder(OutputStream output, JsonActivityEncoder encoder) {
+    Assert.notNull(output, "Output stream cannot be null");
+    Assert.notNull(encoder, "Encoder cannot be null");
+    this.output = output;
+    this.encoder = encoder;
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var json = encoder.encode(activity, context);
+    synchronized (lock) {
+      try {
+        output.write(json);
+        output.write(LINE_FEED);
+        output.flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.montealegreluis.activityfeed;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import org.slf4j.event.Level;
+
+/**
+ * Immutable snapshot of an activity as it was recorded, along with its correlation and static
+ * contexts
+ *
+ * <p>Its context entries are created once, when the snapshot is taken, so reading them never calls
+ * the context factory of the activity again.
+ */
+@EqualsAndHashCode
+public final class RecordedActivity {
+  private final Level level;
+  private final ActivityIdentifier identifier;
+  private final String message;
+  private final long timestamp;
+  private final long sequence;
+  private final Map<String, Object> context;
+  private final Map<String, String> correlation;
+  private final Map<String, Object> staticContext;
+
+  static RecordedActivity of(Activity activity, StaticContext staticContext) {
+    Map<String, Object> entries = new LinkedHashMap<>();
+    activity.addEntries(entries);
+    return new RecordedActivity(activity, Collections.unmodifiableMap(entries), staticContext);
+  }
+
+  public Level level() {
+    return level;
+  }
+
+  public ActivityIdentifier identifier() {
+    return identifier;
+  }
+
+  public String message() {
+    return message;
+  }
+
+  /** Nanoseconds since the epoch when the activity was created */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  /** Position of the activity in the feed that recorded it, 0 if it wasn't added to one */
+  public long sequence() {
+    return sequence;
+  }
+
+  /** Entries created by the context factory of the activity */
+  public Map<String, Object> context() {
+    return context;
+  }
+
+  /** Entries of the correlation context that was current when the activity was created */
+  public Map<String, String> correlation() {
+    return correlation;
+  }
+
+  /** Entries of the feed the activity was added to */
+  public Map<String, Object> staticContext() {
+    return staticContext;
+  }
+
+  private RecordedActivity(
+      Activity activity, Map<String, Object> context, StaticContext staticContext) {
+    this.level = activity.level();
+    this.identifier = activity.identifier();
+    this.message = activity.message();
+    this.timestamp = activity.timestamp();
+    this.sequence = activity.sequence();
+    this.context = context;
+    this.correlation = activity.correlation().entries();
+    this.staticContext = staticContext.entries();
+  }
+}
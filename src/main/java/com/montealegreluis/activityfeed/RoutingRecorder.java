@@ -0,0 +1,105 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.event.Level;
+
+/**
+ * Sends every activity only to the recorders of the routes matching its identifier and level
+ *
+ * <pre>
+ * new RoutingRecorder(List.of(
+ *     Route.of("audit-*", journal),
+ *     Route.of("search-*", EnumSet.of(Level.INFO, Level.WARN), metrics)));
+ * </pre>
+ *
+ * <p>Routes are resolved once per identifier into a table with the recorders for every level, so
+ * recording an activity takes a single lookup. Activities not matching any route are discarded.
+ */
+public final class RoutingRecorder implements ActivityRecorder {
+  private static final int MAX_IDENTIFIERS = 10_000;
+  private static final ActivityRecorder[] NONE = new ActivityRecorder[0];
+  private final List<Route> routes;
+  private final Map<ActivityIdentifier, ActivityRecorder[][]> dispatchTable =
+      new ConcurrentHashMap<>();
+
+  public RoutingRecorder(List<Route> routes) {
+    Assert.notEmpty(routes);
+    this.routes = List.copyOf(routes);
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    for (var recorder : recordersFor(activity)) recorder.record(activity, context);
+  }
+
+  private ActivityRecorder[] recordersFor(Activity activity) {
+    var identifier = activity.identifier();
+    var recorders = dispatchTable.get(identifier);
+    if (recorders == null) {
+      recorders = resolve(identifier.value());
+      // identifiers are expected to be constants, this prevents unbounded growth if they're not
+      if (dispatchTable.size() < MAX_IDENTIFIERS) dispatchTable.putIfAbsent(identifier, recorders);
+    }
+    return recorders[activity.level().ordinal()];
+  }
+
+  private ActivityRecorder[][] resolve(String identifier) {
+    var levels = Level.values();
+    var recorders = new ActivityRecorder[levels.length][];
+    for (var level : levels) {
+      Set<ActivityRecorder> matching = new LinkedHashSet<>();
+      for (var route : routes) {
+        if (route.matches(identifier, level)) matching.addAll(route.recorders);
+      }
+      recorders[level.ordinal()] = matching.isEmpty() ? NONE : matching.toArray(NONE);
+    }
+    return recorders;
+  }
+
+  public static final class Route {
+    private final String prefix;
+    private final boolean exact;
+    private final Set<Level> levels;
+    private final List<ActivityRecorder> recorders;
+
+    /** A route for activities of any level */
+    public static Route of(String pattern, ActivityRecorder... recorders) {
+      return of(pattern, EnumSet.allOf(Level.class), recorders);
+    }
+
+    /**
+     * Patterns ending with <code>*</code> match identifiers starting with what comes before it,
+     * other patterns match a single identifier
+     */
+    public static Route of(String pattern, Set<Level> levels, ActivityRecorder... recorders) {
+      Assert.notBlank(pattern, "Route pattern cannot be blank. '%s' given");
+      Assert.notEmpty(levels);
+      var routed = List.of(recorders);
+      Assert.notEmpty(routed);
+      return new Route(pattern, levels, routed);
+    }
+
+    private Route(String pattern, Set<Level> levels, List<ActivityRecorder> recorders) {
+      this.exact = !pattern.endsWith("*");
+      this.prefix = exact ? pattern : pattern.substring(0, pattern.length() - 1);
+      this.levels = EnumSet.copyOf(levels);
+      this.recorders = recorders;
+    }
+
+    private boolean matches(String identifier, Level level) {
+      if (!levels.contains(level)) return false;
+      return exact ? identifier.equals(prefix) : identifier.startsWith(prefix);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers activities per thread and hands them to its recorders from a single background thread
+ *
+ * <p>Every thread recording activities gets its own bounded ring buffer, with a single writer and a
+ * single reader, so threads do not share a buffer. Feeds created with {@link
+ * ActivityFeed#withSequence} still number activities with a counter shared by all threads adding
+ * activities to them, activities of other feeds are not reordered when sorting by sequence. The
+ * context factory of an activity runs on the thread recording it, before it is buffered, so
+ * factories see the state of that thread.
+ *
+ * <p>The background thread drains all buffers in batches, sorts every batch by sequence or
+ * timestamp if required, and records its activities. It parks while all buffers are empty and is
+ * woken up by the next activity recorded. Activities recorded while the thread's buffer is full, or
+ * once the recorder is closed, are dropped and counted.
+ */
+public final class ShardedRecorder implements ActivityRecorder, Closeable {
+  private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+  private final List<ActivityRecorder> recorders;
+  private final int shardCapacity;
+  private final Ordering ordering;
+  private final List<Shard> shards = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Shard> shard = ThreadLocal.withInitial(this::newShard);
+  private final Thread merger;
+  private volatile long abandonedDropped;
+  private volatile boolean running = true;
+  private volatile boolean stopped;
+  private volatile boolean parked;
+
+  public enum Ordering {
+    /** Activities from the same thread are recorded in order, batches are not sorted */
+    ARRIVAL(null),
+    /** Batches are sorted by the sequence numbers feeds assign to activities */
+    SEQUENCE(Comparator.comparingLong((Pending pending) -> pending.activity.sequence())),
+    /** Batches are sorted by the time activities were created */
+    TIMESTAMP(Comparator.comparingLong((Pending pending) -> pending.activity.timestamp()));
+
+    private final Comparator<Pending> comparator;
+
+    Ordering(Comparator<Pending> comparator) {
+      this.comparator = comparator;
+    }
+  }
+
+  public ShardedRecorder(List<ActivityRecorder> recorders) {
+    this(recorders, 4_096, Ordering.SEQUENCE);
+  }
+
+  /** The capacity of every thread's buffer is rounded up to the next power of two */
+  public ShardedRecorder(List<ActivityRecorder> recorders, int shardCapacity, Ordering ordering) {
+    Assert.notEmpty(recorders);
+    Assert.notNull(ordering, "Ordering cannot be null");
+    Assert.isTrue(
+        shardCapacity > 0 && shardCapacity <= 1 << 30, "Shard capacity must be between 1 and 2^30");
+    this.recorders = List.copyOf(recorders);
+    this.shardCapacity = Integer.highestOneBit(shardCapacity - 1 | 1) << 1;
+    this.ordering = ordering;
+    this.merger = new Thread(this::merge, "activity-feed-shard-merger");
+    this.merger.setDaemon(true);
+    this.merger.start();
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var materialized = materialize(activity);
+    var shard = this.shard.get();
+    shard.writing = true;
+    if (!running) shard.dropped++;
+    else if (shard.offer(materialized, context) && parked) LockSupport.unpark(merger);
+    shard.writing = false;
+  }
+
+  /** Amount of activities that could not be buffered */
+  public long dropped() {
+    long dropped = abandonedDropped;
+    for (var shard : shards) dropped += shard.dropped;
+    return dropped;
+  }
+
+  /**
+   * Stops accepting activities and waits up to 5 seconds for buffered activities to be recorded
+   *
+   * <p>Activities still buffered after that are reported as a warning, the background thread keeps
+   * recording them.
+   */
+  @Override
+  public void close() {
+    running = false;
+    // wait for threads that saw the recorder running to finish buffering their activity
+    for (var shard : shards) {
+      while (shard.writing) Thread.onSpinWait();
+    }
+    stopped = true;
+    LockSupport.unpark(merger);
+    try {
+      merger.join(CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!merger.isAlive()) return;
+    long pending = 0;
+    for (var shard : shards) pending += shard.size();
+    LoggerFactory.getLogger(ShardedRecorder.class)
+        .warn("{} activities were not recorded before closing the recorder", pending);
+  }
+
+  /** Entries of activities not created from a definition are created by the thread recording it */
+  private static Activity materialize(Activity activity) {
+    if (activity.definedValues() != null) return activity;
+
+    Map<String, Object> entries = new LinkedHashMap<>();
+    activity.addEntries(entries);
+    return activity.withEntries(entries);
+  }
+
+  private Shard newShard() {
+    var shard = new Shard(shardCapacity);
+    shards.add(shard);
+    return shard;
+  }
+
+  private void merge() {
+    var batch = new ArrayList<Pending>();
+    while (true) {
+      boolean stopping = stopped;
+      for (var shard : shards) {
+        shard.drainTo(batch);
+        if (shard.isAbandoned() && shards.remove(shard)) abandonedDropped += shard.dropped;
+      }
+      if (!batch.isEmpty()) {
+        if (ordering.comparator != null) batch.sort(ordering.comparator);
+        for (var pending : batch) deliver(pending);
+        batch.clear();
+        continue;
+      }
+      if (stopping) return;
+      // producers check this flag after publishing an activity, check the buffers once more after
+      // setting it, so that activity is either seen here or its producer unparks this thread
+      parked = true;
+      if (isEmpty() && !stopped) LockSupport.park(this);
+      parked = false;
+    }
+  }
+
+  private boolean isEmpty() {
+    for (var shard : shards) {
+      if (shard.size() > 0) return false;
+    }
+    return true;
+  }
+
+  private void deliver(Pending pending) {
+    for (var recorder : recorders) {
+      try {
+        recorder.record(pending.activity, pending.context);
+      } catch (RuntimeException e) {
+        // A failing recorder must not stop the others, nor the activities that come after
+      }
+    }
+  }
+
+  private static final class Pending {
+    private final Activity activity;
+    private final StaticContext context;
+
+    private Pending(Activity activity, StaticContext context) {
+      this.activity = activity;
+      this.context = context;
+    }
+  }
+
+  /** A ring buffer written only by the thread that owns it and read only by the merger */
+  private static final class Shard {
+    private final Thread owner = Thread.currentThread();
+    private final Activity[] activities;
+    private final StaticContext[] contexts;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long dropped;
+    private volatile boolean writing;
+
+    private Shard(int capacity) {
+      this.activities = new Activity[capacity];
+      this.contexts = new StaticContext[capacity];
+      this.mask = capacity - 1;
+    }
+
+    /** Returns false if the activity was dropped because the buffer is full */
+    private boolean offer(Activity activity, StaticContext context) {
+      long tail = this.tail.get();
+      if (tail - head.get() == activities.length) {
+        dropped++;
+        return false;
+      }
+      int index = (int) tail & mask;
+      activities[index] = activity;
+      contexts[index] = context;
+      this.tail.set(tail + 1);
+      return true;
+    }
+
+    private long size() {
+      return tail.get() - head.get();
+    }
+
+    private void drainTo(List<Pending> batch) {
+      long head = this.head.get();
+      long tail = this.tail.get();
+      for (; head < tail; head++) {
+        int index = (int) head & mask;
+        batch.add(new Pending(activities[index], contexts[index]));
+        activities[index] = null;
+        contexts[index] = null;
+      }
+      this.head.lazySet(head);
+    }
+
+    private boolean isAbandoned() {
+      return !owner.isAlive() && head.get() == tail.get();
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends activities as JSON frames to a local agent over a persistent TCP connection
+ *
+ * <p>Activities are encoded on the caller's thread and queued in a bounded buffer. A single
+ * background thread runs a non-blocking selector loop that coalesces queued frames into as few
+ * writes as possible. If the connection cannot be established or is lost, it reconnects with an
+ * exponential backoff. Activities recorded while the buffer is full are dropped and counted, as
+ * well as the activities not sent when it is closed.
+ */
+public final class SocketRecorder implements ActivityRecorder, Closeable {
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private final InetSocketAddress address;
+  private final JsonActivityEncoder encoder;
+  private final Framing framing;
+  private final BlockingQueue<byte[]> frames;
+  private final long initialBackoff;
+  private final long maximumBackoff;
+  private final Selector selector;
+  private final Thread loop;
+  private final LongAdder dropped = new LongAdder();
+  private final ByteBuffer coalesced = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+  private ByteBuffer pending = coalesced.flip();
+  private int pendingFrames;
+  private SocketChannel channel;
+  private long backoff;
+  private long reconnectAt;
+  private volatile boolean waiting;
+  private volatile boolean running = true;
+
+  public enum Framing {
+    /** Each JSON object is followed by a line feed */
+    NEWLINE_DELIMITED,
+    /** Each JSON object is preceded by its length as a 4 bytes big-endian integer */
+    LENGTH_PREFIXED
+  }
+
+  public SocketRecorder(InetSocketAddress address) throws IOException {
+    this(
+        address,
+        new JsonActivityEncoder(),
+        Framing.NEWLINE_DELIMITED,
+        10_000,
+        Duration.ofMillis(100),
+        Duration.ofSeconds(30));
+  }
+
+  public SocketRecorder(
+      InetSocketAddress address,
+      JsonActivityEncoder encoder,
+      Framing framing,
+      int capacity,
+      Duration initialBackoff,
+      Duration maximumBackoff)
+      throws IOException {
+    Assert.notNull(address, "Address cannot be null");
+    Assert.notNull(encoder, "Encoder cannot be null");
+    Assert.notNull(framing, "Framing cannot be null");
+    Assert.notNull(initialBackoff, "Initial backoff cannot be null");
+    Assert.notNull(maximumBackoff, "Maximum backoff cannot be null");
+    this.address = address;
+    this.encoder = encoder;
+    this.framing = framing;
+    this.frames = new ArrayBlockingQueue<>(capacity);
+    this.initialBackoff = initialBackoff.toNanos();
+    this.maximumBackoff = maximumBackoff.toNanos();
+    this.backoff = this.initialBackoff;
+    this.reconnectAt = System.nanoTime();
+    this.selector = Selector.open();
+    this.loop = new Thread(this::run, "activity-feed-socket-recorder");
+    this.loop.setDaemon(true);
+    this.loop.start();
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var frame = frame(encoder.encode(activity, context));
+    if (!running || !frames.offer(frame)) {
+      dropped.increment();
+      return;
+    }
+    // the loop may have discarded queued frames already, frames are counted by whoever removes them
+    if (!running && frames.remove(frame)) dropped.increment();
+    else if (waiting) selector.wakeup();
+  }
+
+  /** Amount of activities that could not be buffered, or were not sent before closing */
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  /** Stops accepting activities and waits up to 5 seconds for queued frames to be sent */
+  @Override
+  public void close() throws IOException {
+    running = false;
+    selector.wakeup();
+    try {
+      loop.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    loop.interrupt();
+  }
+
+  private byte[] frame(byte[] json) {
+    var frame = new byte[json.length + (framing == Framing.NEWLINE_DELIMITED ? 1 : 4)];
+    if (framing == Framing.NEWLINE_DELIMITED) {
+      System.arraycopy(json, 0, frame, 0, json.length);
+      frame[json.length] = '\n';
+    } else {
+      ByteBuffer.wrap(frame).putInt(json.length).put(json);
+    }
+    return frame;
+  }
+
+  private void run() {
+    try {
+      while (running || (isConnected() && hasPendingFrames())) {
+        if (channel == null && System.nanoTime() >= reconnectAt) connect();
+        if (isConnected()) write();
+        select();
+      }
+    } catch (IOException e) {
+      // The selector itself failed, nothing else can be sent
+    } finally {
+      disconnect();
+      closeSelector();
+      discardUnsentFrames();
+    }
+  }
+
+  private void discardUnsentFrames() {
+    if (pending.hasRemaining()) dropped.add(pendingFrames);
+    while (frames.poll() != null) dropped.increment();
+  }
+
+  private void connect() {
+    try {
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      if (channel.connect(address)) {
+        connected();
+      } else {
+        channel.register(selector, SelectionKey.OP_CONNECT);
+      }
+    } catch (IOException e) {
+      reconnectLater();
+    }
+  }
+
+  private void connected() throws IOException {
+    backoff = initialBackoff;
+    channel.register(selector, 0);
+  }
+
+  private void write() {
+    try {
+      if (!pending.hasRemaining()) coalesce();
+      if (pending.hasRemaining()) channel.write(pending);
+      channel.keyFor(selector).interestOps(pending.hasRemaining() ? SelectionKey.OP_WRITE : 0);
+    } catch (IOException e) {
+      // Frames in the current write are sent again once reconnected
+      pending.rewind();
+      reconnectLater();
+    }
+  }
+
+  private void coalesce() {
+    var frame = frames.poll();
+    if (frame == null) return;
+    pendingFrames = 1;
+    if (frame.length > coalesced.capacity()) {
+      pending = ByteBuffer.wrap(frame);
+      return;
+    }
+    coalesced.clear().put(frame);
+    while (frames.peek() != null && frames.peek().length <= coalesced.remaining()) {
+      coalesced.put(frames.poll());
+      pendingFrames++;
+    }
+    pending = coalesced.flip();
+  }
+
+  private void select() throws IOException {
+    waiting = true;
+    try {
+      if (!frames.isEmpty() && isConnected() && !pending.hasRemaining()) {
+        selector.selectNow();
+      } else if (channel == null) {
+        long delay = TimeUnit.NANOSECONDS.toMillis(reconnectAt - System.nanoTime());
+        selector.select(Math.max(1, delay));
+      } else {
+        selector.select();
+      }
+    } finally {
+      waiting = false;
+    }
+    for (var key : selector.selectedKeys()) {
+      if (key.isValid() && key.isConnectable()) finishConnect();
+    }
+    selector.selectedKeys().clear();
+  }
+
+  private void finishConnect() {
+    try {
+      if (channel.finishConnect()) connected();
+    } catch (IOException e) {
+      reconnectLater();
+    }
+  }
+
+  private void reconnectLater() {
+    disconnect();
+    reconnectAt = System.nanoTime() + backoff;
+    backoff = Math.min(backoff * 2, maximumBackoff);
+  }
+
+  private void disconnect() {
+    if (channel == null) return;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Nothing else can be done with a broken channel
+    }
+    channel = null;
+  }
+
+  private void closeSelector() {
+    try {
+      selector.close();
+    } catch (IOException e) {
+      // Nothing else can be done with a broken selector
+    }
+  }
+
+  private boolean isConnected() {
+    return channel != null && channel.isConnected();
+  }
+
+  private boolean hasPendingFrames() {
+    return pending.hasRemaining() || !frames.isEmpty();
+  }
+}
@@ -0,0 +1,92 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.montealegreluis.assertions.Assert;
+import io.vavr.control.Try;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.logstash.logback.marker.LogstashMarker;
+import net.logstash.logback.marker.Markers;
+
+/**
+ * Entries shared by every activity in a feed, like the service name, version or host
+ *
+ * <p>Entries are validated and encoded as JSON once, when the context is created. Contexts created
+ * from another context reuse the encoded entries of the former instead of copying them.
+ */
+public final class StaticContext {
+  static final StaticContext EMPTY = new StaticContext();
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private final StaticContext parent;
+  private final Map<String, Object> entries;
+  private final SerializableString encoded;
+  private final LogstashMarker marker;
+
+  StaticContext with(Map<String, Object> entries) {
+    Assert.notNull(entries, "Static context entries cannot be null");
+    return new StaticContext(this, entries);
+  }
+
+  /** Entries of this context and all of its parents */
+  public Map<String, Object> entries() {
+    return entries;
+  }
+
+  boolean isEmpty() {
+    return this == EMPTY;
+  }
+
+  /** Appends the encoded entries to an object that already has at least one field */
+  void write(JsonGenerator generator) throws IOException {
+    if (parent != null) parent.write(generator);
+    if (encoded != null) generator.writeRaw(encoded);
+  }
+
+  LogstashMarker marker() {
+    return marker;
+  }
+
+  private StaticContext() {
+    this.parent = null;
+    this.entries = Collections.emptyMap();
+    this.encoded = null;
+    this.marker = null;
+  }
+
+  private StaticContext(StaticContext parent, Map<String, Object> entries) {
+    Map<String, Object> own = new LinkedHashMap<>(entries);
+    own.keySet().forEach((key) -> assertValidKey(key, parent));
+    this.parent = parent.isEmpty() ? null : parent;
+    Map<String, Object> all = new LinkedHashMap<>(parent.entries);
+    all.putAll(own);
+    this.entries = Collections.unmodifiableMap(all);
+    this.encoded = own.isEmpty() ? null : encode(own);
+    this.marker = Markers.appendEntries(own);
+    if (this.parent != null) this.marker.add(this.parent.marker);
+  }
+
+  private static void assertValidKey(String key, StaticContext parent) {
+    Assert.notBlank(key, "Static context key cannot be blank. '%s' given");
+    Assert.isTrue(
+        !Activity.RESERVED_KEYS.contains(key),
+        String.format(
+            "Static context key cannot be any of %s. '%s' given", Activity.RESERVED_KEYS, key));
+    Assert.isTrue(
+        !parent.entries.containsKey(key),
+        String.format("Static context key '%s' is already defined by its parent", key));
+  }
+
+  private static SerializableString encode(Map<String, Object> entries) {
+    var json =
+        Try.of(() -> MAPPER.writeValueAsString(entries))
+            .getOrElseThrow((cause) -> new SerializerFailure(entries, cause));
+    var encoded = new SerializedString("," + json.substring(1, json.length() - 1));
+    encoded.asUnquotedUTF8();
+    return encoded;
+  }
+}
@@ -0,0 +1,102 @@
+package com.montealegreluis.activityfeed;
+
+import com.montealegreluis.assertions.Assert;
+import org.slf4j.event.Level;
+
+/**
+ * Holds back tracing and debugging activities until a request fails
+ *
+ * <pre>
+ * try (var scope = recorder.openScope()) {
+ *   handle(request);
+ * }
+ * </pre>
+ *
+ * <p>While a scope is open, tracing and debugging activities recorded by the same thread are kept
+ * in a small buffer, which is discarded when the scope is closed. If a warning or an error is
+ * recorded within the scope, the buffered activities are recorded before it, and any other
+ * activity in the scope is recorded right away. Only the most recent activities are kept once the
+ * buffer is full. Activities recorded outside a scope are recorded right away.
+ */
+public final class TailBufferingRecorder implements ActivityRecorder {
+  private final ActivityRecorder recorder;
+  private final int capacity;
+  private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+  public TailBufferingRecorder(ActivityRecorder recorder) {
+    this(recorder, 64);
+  }
+
+  public TailBufferingRecorder(ActivityRecorder recorder, int capacity) {
+    Assert.notNull(recorder, "Recorder cannot be null");
+    Assert.isTrue(capacity > 0, "Capacity must be greater than zero");
+    this.recorder = recorder;
+    this.capacity = capacity;
+  }
+
+  /** Scopes must be closed by the same thread that opened them */
+  public Scope openScope() {
+    var scope = new Scope(scopes.get());
+    scopes.set(scope);
+    return scope;
+  }
+
+  @Override
+  public void record(Activity activity) {
+    record(activity, StaticContext.EMPTY);
+  }
+
+  @Override
+  public void record(Activity activity, StaticContext context) {
+    var scope = scopes.get();
+    if (scope == null || scope.failed) {
+      recorder.record(activity, context);
+    } else if (activity.level().toInt() <= Level.DEBUG.toInt()) {
+      scope.hold(activity, context);
+    } else if (activity.level().toInt() >= Level.WARN.toInt()) {
+      scope.fail();
+      recorder.record(activity, context);
+    } else {
+      recorder.record(activity, context);
+    }
+  }
+
+  public final class Scope implements AutoCloseable {
+    private final Scope previous;
+    private final Activity[] activities = new Activity[capacity];
+    private final StaticContext[] contexts = new StaticContext[capacity];
+    private int next;
+    private int size;
+    private boolean failed;
+
+    private Scope(Scope previous) {
+      this.previous = previous;
+    }
+
+    private void hold(Activity activity, StaticContext context) {
+      activities[next] = activity;
+      contexts[next] = context;
+      next = (next + 1) % capacity;
+      if (size < capacity) size++;
+    }
+
+    private void fail() {
+      failed = true;
+      int oldest = (next - size + capacity) % capacity;
+      for (int i = 0; i < size; i++) {
+        int index = (oldest + i) % capacity;
+        recorder.record(activities[index], contexts[index]);
+        activities[index] = null;
+        contexts[index] = null;
+      }
+      size = 0;
+    }
+
+    /** Discards the buffered activities */
+    @Override
+    public void close() {
+      if (previous == null) scopes.remove();
+      else scopes.set(previous);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class ActivityArchiveTest {
+  @Test
+  void it_reads_all_activities_within_a_time_range() throws IOException {
+    archive.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    archive.record(Activity.error("server-error", "Server error"));
+    archive.close();
+
+    var messages = messagesBetween(start, Instant.now(), null);
+
+    assertEquals(
+        List.of("Customer profile was saved", "Product price is invalid", "Server error"),
+        messages);
+  }
+
+  @Test
+  void it_reads_activities_with_a_given_identifier() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      archive.record(Activity.info("save-customer-profile", "Customer profile " + i));
+      if (i % 10 == 0) archive.record(Activity.error("server-error", "Server error " + i));
+    }
+    archive.close();
+
+    var messages = messagesBetween(Instant.MIN, Instant.MAX, "server-error");
+
+    assertEquals(10, messages.size());
+    assertEquals("Server error 0", messages.get(0));
+    assertEquals("Server error 90", messages.get(9));
+  }
+
+  @Test
+  void it_skips_activities_outside_the_time_range() throws IOException {
+    var later = Instant.now().plus(Duration.ofHours(1));
+    archive.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    archive.close();
+
+    var messages = messagesBetween(later, Instant.MAX, null);
+
+    assertTrue(messages.isEmpty());
+  }
+
+  @Test
+  void it_keeps_activities_recorded_before_a_restart() throws IOException {
+    archive.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    archive.close();
+    archive = new ActivityArchive(file, new JsonActivityEncoder(), BLOCK_SIZE);
+
+    archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    archive.close();
+
+    assertEquals(
+        List.of("Customer profile was saved", "Product price is invalid"),
+        messagesBetween(start, Instant.now(), null));
+  }
+
+  @Test
+  void it_reads_the_complete_blocks_of_an_archive_with_a_partially_written_block()
+      throws IOException {
+    archive.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    archive.close();
+    var complete = Files.size(file);
+    archive = new ActivityArchive(file, new JsonActivityEncoder(), BLOCK_SIZE);
+    archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    archive.close();
+    tearLastBlock(complete);
+
+    var messages = messagesBetween(start, Instant.now(), null);
+
+    assertEquals(List.of("Customer profile was saved"), messages);
+  }
+
+  @Test
+  void it_discards_a_partially_written_block_when_opened_again() throws IOException {
+    archive.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    archive.close();
+    var complete = Files.size(file);
+    archive = new ActivityArchive(file, new JsonActivityEncoder(), BLOCK_SIZE);
+    archive.record(Activity.error("server-error", "Server error"));
+    archive.close();
+    tearLastBlock(complete);
+
+    archive = new ActivityArchive(file, new JsonActivityEncoder(), BLOCK_SIZE);
+    archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    archive.close();
+
+    assertEquals(
+        List.of("Customer profile was saved", "Product price is invalid"),
+        messagesBetween(start, Instant.now(), null));
+  }
+
+  @Test
+  void it_writes_full_blocks_in_the_order_they_were_recorded() throws Exception {
+    var producers = new ArrayList<Thread>();
+    for (int producer = 0; producer < 4; producer++) {
+      var id = producer;
+      producers.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 250; i++) {
+                  archive.record(Activity.info("producer-" + id, "Activity " + id + "-" + i));
+                }
+              }));
+    }
+    producers.forEach(Thread::start);
+    for (var producer : producers) producer.join();
+    archive.close();
+
+    var messages = messagesBetween(Instant.MIN, Instant.MAX, "producer-0");
+
+    assertEquals(250, messages.size());
+    for (int i = 0; i < 250; i++) assertEquals("Activity 0-" + i, messages.get(i));
+  }
+
+  @Test
+  void it_cannot_record_or_flush_activities_once_closed() throws IOException {
+    var archive = new ActivityArchive(file, new JsonActivityEncoder(), 1);
+    archive.close();
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> archive.record(Activity.info("product-searched", "Products were searched")));
+    assertThrows(IllegalStateException.class, archive::flush);
+    archive.close();
+  }
+
+  @Test
+  void it_compresses_activities() throws IOException {
+    int uncompressedSize = 0;
+    var encoder = new JsonActivityEncoder();
+    for (int i = 0; i < 1_000; i++) {
+      var activity = Activity.info("save-customer-profile", "Customer profile " + i);
+      uncompressedSize += encoder.encode(activity).length;
+      archive.record(activity);
+    }
+    archive.close();
+
+    assertTrue(Files.size(file) < uncompressedSize / 4);
+  }
+
+  @BeforeEach
+  void let() throws IOException {
+    start = Instant.now().minusMillis(1);
+    file = Files.createTempFile("activities", ".archive");
+    archive = new ActivityArchive(file, new JsonActivityEncoder(), BLOCK_SIZE);
+  }
+
+  @AfterEach
+  void cleanUp() throws IOException {
+    archive.close();
+    Files.delete(file);
+  }
+
+  /** Keeps only half of the block written after the given size */
+  private void tearLastBlock(long complete) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(complete + (Files.size(file) - complete) / 2);
+    }
+  }
+
+  private List<String> messagesBetween(Instant from, Instant to, String identifier)
+      throws IOException {
+    List<String> activities = new ArrayList<>();
+    ActivityArchive.read(file, from, to, identifier, activities::add);
+    return activities.stream().map(this::messageIn).collect(Collectors.toList());
+  }
+
+  private String messageIn(String json) {
+    try {
+      return mapper.readTree(json).get("message").asText();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static final int BLOCK_SIZE = 1024;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private Instant start;
+  private Path file;
+  private ActivityArchive archive;
+}
@@ -20,6 +20,16 @@ final class ActivityBuilderTest {
         () -> anInformationalActivity().withIdentifier("application-error").build());
   }
 
+  @Test
+  void it_builds_an_activity_with_a_predefined_identifier() {
+    var identifier = ActivityIdentifier.of("saving-file");
+
+    var activity =
+        aDebuggingActivity().withIdentifier(identifier).withMessage("Saving file").build();
+
+    assertEquals(identifier.debug("Saving file"), activity);
+  }
+
   @Test
   void it_builds_an_error_activity_without_context() {
     var errorActivity = Activity.error("application-error", "Application Error");
@@ -0,0 +1,31 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+final class ActivityClockTest {
+  @Test
+  void it_uses_the_coarse_clock_by_default() {
+    assertEquals(ActivityClock.COARSE, ActivityClock.fromProperty(null));
+  }
+
+  @Test
+  void it_chooses_a_clock_regardless_of_case() {
+    assertEquals(ActivityClock.PRECISE, ActivityClock.fromProperty(" Precise "));
+    assertEquals(ActivityClock.COARSE, ActivityClock.fromProperty("COARSE"));
+  }
+
+  @Test
+  void it_falls_back_to_the_coarse_clock_if_the_property_is_unknown() {
+    assertEquals(ActivityClock.COARSE, ActivityClock.fromProperty("presice"));
+  }
+
+  @Test
+  void it_reads_nanoseconds_since_the_epoch() {
+    long millis = System.currentTimeMillis();
+
+    assertTrue(ActivityClock.COARSE.now() / 1_000_000 >= millis);
+    assertTrue(ActivityClock.PRECISE.now() / 1_000_000 >= millis);
+  }
+}
@@ -0,0 +1,80 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+final class ActivityDefinitionTest {
+  @Test
+  void it_prevents_blank_or_null_messages() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ActivityDefinition.info("search-products", " "));
+    assertThrows(
+        IllegalArgumentException.class, () -> ActivityDefinition.error("search-products", null));
+  }
+
+  @Test
+  void it_prevents_blank_or_null_identifiers() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ActivityDefinition.debug(" ", "Search completed"));
+  }
+
+  @Test
+  void it_prevents_blank_context_keys() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ActivityDefinition.trace("search-products", "Search completed", "category", " "));
+  }
+
+  @Test
+  void it_prevents_duplicated_context_keys() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            ActivityDefinition.info(
+                "search-products", "Search completed", "category", "price", "category"));
+  }
+
+  @Test
+  void it_fails_to_create_an_activity_with_a_different_amount_of_values() {
+    var definition =
+        ActivityDefinition.info("search-products", "Search completed", "category", "price");
+
+    assertThrows(IllegalArgumentException.class, () -> definition.activity("Toys"));
+  }
+
+  @Test
+  void it_creates_activities_with_its_level_identifier_and_message() {
+    var definition = ActivityDefinition.warning("invalid-product-price", "Invalid price");
+
+    var activity = definition.activity();
+
+    assertEquals(Level.WARN, activity.level());
+    assertEquals(Activity.warning("invalid-product-price", "Invalid price"), activity);
+  }
+
+  @Test
+  void it_creates_activities_with_context() {
+    var definition =
+        ActivityDefinition.info(
+            "search-products", "Search Products completed", "category", "maximumPrice");
+    var expected =
+        Activity.info(
+            "search-products",
+            "Search Products completed",
+            (context) -> {
+              context.put("category", "Toys");
+              context.put("maximumPrice", 2000);
+            });
+
+    var activity = definition.activity("Toys", 2000);
+
+    assertEquals(expected.context(), activity.context());
+    assertArrayEquals(
+        encoder.encode(expected.stamped(activity.timestamp(), 0)), encoder.encode(activity));
+  }
+
+  private final JsonActivityEncoder encoder = new JsonActivityEncoder();
+}
@@ -0,0 +1,185 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+
+final class ActivityFeedConcurrencyTest {
+  @Test
+  void it_neither_loses_nor_duplicates_activities_added_concurrently() throws Exception {
+    for (int producers = 1; producers <= MAXIMUM_PRODUCERS; producers *= 2) {
+      var recorder = new CountingRecorder();
+      var feed = new ActivityFeed(List.of(recorder));
+
+      var report = new ConcurrentProducers(producers, ACTIVITIES_PER_PRODUCER).run(feed);
+
+      assertEquals(report.activities(), recorder.distinct(), report.toString());
+      assertEquals(0, recorder.duplicated(), report.toString());
+    }
+  }
+
+  @Test
+  void it_reports_activities_lost_by_the_recorder() throws Exception {
+    var recorder = new CountingRecorder();
+    var feed = new ActivityFeed(List.of(recorder));
+
+    var report = new ConcurrentProducers(1, ACTIVITIES_PER_PRODUCER).run(feed).counted(recorder);
+
+    assertEquals(0, report.lost(), report.toString());
+    assertEquals(0, report.duplicated(), report.toString());
+  }
+
+  @Test
+  void it_does_not_report_the_bytes_allocated_to_create_activities() throws Exception {
+    var feed = new ActivityFeed(List.of(new CountingRecorder()));
+
+    var report =
+        new ConcurrentProducers(1, 100)
+            .run(
+                feed,
+                (producer, index) -> {
+                  var padding = new byte[1 << 20];
+                  return Activity.info("producer-0", "Activity " + index + padding.length);
+                },
+                0);
+
+    assertTrue(report.allocatedBytesPerActivity() < 1 << 20, report.toString());
+  }
+
+  @Test
+  void it_reports_the_exact_activities_lost_and_duplicated_by_the_recorder() throws Exception {
+    var recorder = new CountingRecorder();
+    var feed =
+        new ActivityFeed(
+            List.of(
+                (activity) -> {
+                  var message = activity.message();
+                  int index = Integer.parseInt(message.substring(message.lastIndexOf('-') + 1));
+                  if (index % 100 == 0) return;
+                  recorder.record(activity);
+                  if (index % 100 == 1) recorder.record(activity);
+                }));
+
+    var report = new ConcurrentProducers(2, ACTIVITIES_PER_PRODUCER).run(feed).counted(recorder);
+
+    assertEquals(2 * ACTIVITIES_PER_PRODUCER / 100, report.lost(), report.toString());
+    assertEquals(2 * ACTIVITIES_PER_PRODUCER / 100, report.duplicated(), report.toString());
+  }
+
+  @Test
+  void it_neither_loses_nor_duplicates_activities_buffered_by_a_sharded_recorder()
+      throws Exception {
+    var reports =
+        ConcurrentProducers.sweep(
+            ACTIVITIES_PER_PRODUCER, (recorder) -> new ShardedRecorder(List.of(recorder)));
+
+    for (var report : reports) {
+      assertEquals(0, report.lost(), report.toString());
+      assertEquals(0, report.duplicated(), report.toString());
+    }
+  }
+
+  @Test
+  void it_neither_loses_nor_duplicates_activities_sent_by_a_socket_recorder() throws Exception {
+    var received = new CountingRecorder();
+    try (var server = new ServerSocket(0)) {
+      var agent = new Thread(() -> receive(server, received));
+      agent.start();
+      var recorder =
+          new SocketRecorder(
+              new InetSocketAddress("localhost", server.getLocalPort()),
+              new JsonActivityEncoder(),
+              SocketRecorder.Framing.NEWLINE_DELIMITED,
+              MAXIMUM_PRODUCERS * ACTIVITIES_PER_PRODUCER,
+              Duration.ofMillis(10),
+              Duration.ofMillis(100));
+
+      var report =
+          new ConcurrentProducers(MAXIMUM_PRODUCERS, ACTIVITIES_PER_PRODUCER)
+              .run(new ActivityFeed(List.of(recorder)));
+      recorder.close();
+      agent.join(TimeUnit.SECONDS.toMillis(10));
+
+      assertEquals(0, recorder.dropped(), report.toString());
+      assertEquals(0, report.counted(received).lost(), report.toString());
+      assertEquals(0, report.counted(received).duplicated(), report.toString());
+    }
+  }
+
+  @Test
+  void it_rethrows_failures_from_producers() {
+    var feed =
+        new ActivityFeed(
+            List.of(
+                (activity) -> {
+                  throw new IllegalStateException("Recorder failed");
+                }));
+
+    var failure =
+        assertThrows(
+            IllegalStateException.class,
+            () -> new ConcurrentProducers(2, ACTIVITIES_PER_PRODUCER).run(feed));
+
+    assertEquals("Recorder failed", failure.getCause().getMessage());
+    assertEquals(1, failure.getSuppressed().length);
+  }
+
+  @Test
+  void it_logs_every_activity_added_concurrently() throws Exception {
+    var logger = mock(Logger.class);
+    when(logger.isInfoEnabled()).thenReturn(true);
+    var feed = ActivityFeed.withLogging(logger);
+
+    var report = new ConcurrentProducers(MAXIMUM_PRODUCERS, ACTIVITIES_PER_PRODUCER).run(feed);
+
+    verify(logger, times(report.activities())).info(any(Marker.class), anyString());
+  }
+
+  @Test
+  void it_adapts_levels_without_losing_activities_added_concurrently() throws Exception {
+    var recorder = new CountingRecorder();
+    var feed =
+        new ActivityFeed(
+            List.of(
+                new AdaptiveLevelRecorder(
+                    recorder, Duration.ofSeconds(2), Duration.ofSeconds(1), 10)));
+
+    var report = new ConcurrentProducers(MAXIMUM_PRODUCERS, ACTIVITIES_PER_PRODUCER).run(feed);
+
+    assertEquals(report.activities(), recorder.distinct(), report.toString());
+    assertEquals(0, recorder.duplicated(), report.toString());
+  }
+
+  /** Records the message of every line received by the agent until the connection is closed */
+  private static void receive(ServerSocket server, CountingRecorder received) {
+    var mapper = new ObjectMapper();
+    try (var client = server.accept();
+        var lines =
+            new BufferedReader(
+                new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+      for (var line = lines.readLine(); line != null; line = lines.readLine()) {
+        received.record(Activity.info("received", mapper.readTree(line).get("message").asText()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static final int MAXIMUM_PRODUCERS =
+      Math.max(2, Runtime.getRuntime().availableProcessors());
+  private static final int ACTIVITIES_PER_PRODUCER = 2_000;
+}
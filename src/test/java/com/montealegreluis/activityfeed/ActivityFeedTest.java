@@ -1,11 +1,13 @@
 package com.montealegreluis.activityfeed;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import com.montealegreluis.assertions.IllegalArgumentException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
@@ -24,6 +26,20 @@ final class ActivityFeedTest {
     verify(recorderB, times(1)).record(activity);
   }
 
+  @Test
+  void it_adds_an_activity_with_its_static_context_to_all_its_recorders() {
+    var recorderA = mock(ActivityRecorder.class);
+    var recorderB = mock(ActivityRecorder.class);
+    var feed =
+        new ActivityFeed(List.of(recorderA, recorderB)).withContext(Map.of("service", "customers"));
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+
+    feed.add(activity);
+
+    verify(recorderA, times(1)).record(eq(activity), any(StaticContext.class));
+    verify(recorderB, times(1)).record(eq(activity), any(StaticContext.class));
+  }
+
   @Test
   void it_adds_an_activity_and_logs_it_by_default() {
     var logger = mock(Logger.class);
@@ -40,4 +56,59 @@ final class ActivityFeedTest {
   void it_cannot_be_created_without_recorders() {
     assertThrows(IllegalArgumentException.class, () -> new ActivityFeed(Collections.emptyList()));
   }
+
+  @Test
+  void it_numbers_activities_in_the_order_they_are_added_to_it_and_its_derived_feeds() {
+    var feed = new ActivityFeed(List.of(mock(ActivityRecorder.class))).withSequence();
+    var derived = feed.withContext(Map.of("service", "customers"));
+    var first = Activity.info("save-customer-profile", "Customer profile was saved");
+    var second = Activity.info("save-customer-profile", "Customer profile was saved");
+
+    feed.add(first);
+    derived.add(second);
+    feed.add(first);
+
+    assertEquals(1, first.sequence());
+    assertEquals(2, second.sequence());
+  }
+
+  @Test
+  void it_does_not_number_activities_unless_asked_to() {
+    var feed = new ActivityFeed(List.of(mock(ActivityRecorder.class)));
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+
+    feed.add(activity);
+
+    assertEquals(0, activity.sequence());
+  }
+
+  @Test
+  void it_prevents_activities_with_correlation_keys_used_by_its_static_context() throws Exception {
+    var feed =
+        new ActivityFeed(List.of(mock(ActivityRecorder.class)))
+            .withContext(Map.of("service", "customers"));
+    var activity =
+        CorrelationContext.empty()
+            .with("service", "gateway")
+            .call(() -> Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    assertThrows(IllegalArgumentException.class, () -> feed.add(activity));
+  }
+
+  @Test
+  void it_adds_activities_with_correlation_keys_other_than_its_static_context_keys()
+      throws Exception {
+    var recorder = mock(ActivityRecorder.class);
+    var context = Map.<String, Object>of("service", "customers");
+    var feed = new ActivityFeed(List.of(recorder)).withContext(context);
+    var activity =
+        CorrelationContext.empty()
+            .with("requestId", "a2a8c2f4")
+            .call(() -> Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    feed.add(activity);
+    feed.add(activity);
+
+    verify(recorder, times(2)).record(eq(activity), any(StaticContext.class));
+  }
 }
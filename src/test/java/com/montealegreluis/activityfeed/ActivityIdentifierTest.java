@@ -0,0 +1,83 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+final class ActivityIdentifierTest {
+  @Test
+  void it_prevents_blank_or_null_identifiers() {
+    assertThrows(IllegalArgumentException.class, () -> ActivityIdentifier.of(" "));
+    assertThrows(IllegalArgumentException.class, () -> ActivityIdentifier.of(null));
+  }
+
+  @Test
+  void it_keeps_its_value_encoded() {
+    var identifier = ActivityIdentifier.of("search-products");
+
+    assertEquals("search-products", identifier.value());
+    assertArrayEquals(
+        "search-products".getBytes(StandardCharsets.UTF_8), identifier.encoded().asUnquotedUTF8());
+  }
+
+  @Test
+  void it_encodes_its_value_only_once() {
+    var identifier = ActivityIdentifier.of("search-products");
+
+    assertSame(identifier.encoded(), identifier.encoded());
+  }
+
+  @Test
+  void it_creates_activities_with_every_level() {
+    var identifier = ActivityIdentifier.of("file-saved");
+
+    assertEquals(Level.TRACE, identifier.trace("File saved").level());
+    assertEquals(Level.DEBUG, identifier.debug("File saved").level());
+    assertEquals(Level.INFO, identifier.info("File saved").level());
+    assertEquals(Level.WARN, identifier.warning("File saved").level());
+    assertEquals(Level.ERROR, identifier.error("File saved").level());
+  }
+
+  @Test
+  void it_creates_activities_with_context() {
+    var activity =
+        ActivityIdentifier.of("file-saved")
+            .debug("File saved", (context) -> context.put("filename", "test.pdf"));
+
+    @SuppressWarnings("unchecked")
+    var context = (Map<String, Object>) activity.context().get("context");
+    assertEquals("test.pdf", context.get("filename"));
+  }
+
+  @Test
+  void it_prevents_blank_or_null_messages() {
+    var identifier = ActivityIdentifier.of("file-saved");
+
+    assertThrows(IllegalArgumentException.class, () -> identifier.info(" "));
+    assertThrows(IllegalArgumentException.class, () -> identifier.error(null));
+  }
+
+  @Test
+  void it_can_be_compared_to_another_identifier() {
+    var identifier = ActivityIdentifier.of("search-products");
+
+    assertEquals(identifier, ActivityIdentifier.of("search-products"));
+    assertNotEquals(identifier, ActivityIdentifier.of("save-customer-profile"));
+  }
+
+  @Test
+  void it_creates_activities_equal_to_activities_with_string_identifiers() {
+    var identifier = ActivityIdentifier.of("search-products");
+
+    assertEquals(
+        Activity.info("search-products", "Search Products completed"),
+        identifier.info("Search Products completed"));
+    assertEquals(
+        Activity.trace("search-products", "Search Products completed").context(),
+        identifier.trace("Search Products completed").context());
+  }
+}
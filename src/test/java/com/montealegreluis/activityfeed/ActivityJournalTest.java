@@ -0,0 +1,310 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class ActivityJournalTest {
+  @Test
+  void it_records_activities_in_all_its_recorders() throws Exception {
+    var recorderA = new CollectingRecorder();
+    var recorderB = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("a", recorderA, "b", recorderB));
+
+    journal.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    journal.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+
+    awaitUntil(() -> recorderA.messages().size() == 2 && recorderB.messages().size() == 2);
+    assertEquals(
+        List.of("Customer profile was saved", "Product price is invalid"), recorderA.messages());
+    assertEquals(recorderA.messages(), recorderB.messages());
+  }
+
+  @Test
+  void it_replays_activities_with_their_context() throws Exception {
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+    var feed = new ActivityFeed(List.of(journal)).withContext(Map.of("service", "customers"));
+    var correlation = CorrelationContext.empty().with("requestId", "a2a8c2f4");
+    var activity =
+        correlation.call(
+            () ->
+                Activity.debug(
+                    "file-saved", "File saved", (context) -> context.put("size", 1024)));
+
+    feed.add(activity);
+
+    awaitUntil(() -> recorder.activities.size() == 1);
+    var replayed = recorder.activities.get(0);
+    assertEquals(activity, replayed);
+    assertEquals(activity.context(), replayed.context());
+    assertEquals(correlation.entries(), replayed.correlation().entries());
+    assertEquals(Map.of("service", "customers"), recorder.contexts.get(0).entries());
+  }
+
+  @Test
+  void it_resumes_from_the_last_checkpoint_after_a_restart() throws Exception {
+    var before = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", before));
+    journal.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    awaitUntil(() -> journal.checkpoint("recorder") > 0);
+    journal.close();
+    var after = new CollectingRecorder();
+
+    journal = new ActivityJournal(directory, Map.of("recorder", after));
+    journal.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+
+    awaitUntil(() -> after.messages().size() == 1);
+    assertEquals(List.of("Product price is invalid"), after.messages());
+  }
+
+  @Test
+  void it_does_not_wait_for_slow_recorders() throws Exception {
+    var release = new CountDownLatch(1);
+    var slow = new CollectingRecorder(release);
+    var fast = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("slow", slow, "fast", fast));
+
+    for (int i = 0; i < 10; i++) journal.record(Activity.info("file-saved", "File " + i));
+
+    awaitUntil(() -> fast.messages().size() == 10);
+    assertTrue(slow.messages().isEmpty());
+    release.countDown();
+    awaitUntil(() -> slow.messages().size() == 10);
+  }
+
+  @Test
+  void it_records_again_activities_a_recorder_failed_to_record() throws Exception {
+    var failed = new AtomicBoolean();
+    var recorder = new CollectingRecorder();
+    ActivityRecorder failingOnce =
+        (activity) -> {
+          if (failed.compareAndSet(false, true)) throw new IllegalStateException("Unavailable");
+          recorder.record(activity);
+        };
+    journal = new ActivityJournal(directory, Map.of("recorder", failingOnce));
+
+    journal.record(Activity.error("server-error", "Server error"));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(List.of("Server error"), recorder.messages());
+  }
+
+  @Test
+  void it_skips_activities_a_recorder_keeps_failing_to_record() throws Exception {
+    var recorder = new CollectingRecorder();
+    ActivityRecorder failingOnServerErrors =
+        (activity) -> {
+          if (activity.message().equals("Server error")) {
+            throw new IllegalStateException("Unavailable");
+          }
+          recorder.record(activity);
+        };
+    journal =
+        new ActivityJournal(
+            directory, Map.of("recorder", failingOnServerErrors), new ObjectMapper(), 2);
+
+    journal.record(Activity.error("server-error", "Server error"));
+    journal.record(Activity.info("file-saved", "File saved"));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(List.of("File saved"), recorder.messages());
+    assertEquals(1, journal.skipped("recorder"));
+  }
+
+  @Test
+  void it_skips_frames_it_cannot_decode() throws Exception {
+    appendFrame("{\"level\": \"unknown\"}");
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+
+    journal.record(Activity.info("file-saved", "File saved"));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(List.of("File saved"), recorder.messages());
+    assertEquals(1, journal.skipped("recorder"));
+  }
+
+  @Test
+  void it_replays_frames_written_before_activities_had_a_timestamp_and_a_sequence()
+      throws Exception {
+    appendFrame(
+        "{\"level\": \"INFO\", \"identifier\": \"file-saved\", \"message\": \"File saved\","
+            + " \"context\": {}, \"correlation\": {}, \"static\": {}}");
+    var recorder = new CollectingRecorder();
+
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(0, recorder.activities.get(0).sequence());
+  }
+
+  @Test
+  void it_discards_frames_with_a_negative_length() throws Exception {
+    Files.write(directory.resolve("activities.journal"), new byte[] {-1, -1, -1, -8, 0, 0, 0});
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+
+    journal.record(Activity.info("file-saved", "File saved"));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(List.of("File saved"), recorder.messages());
+  }
+
+  @Test
+  void it_starts_from_the_beginning_if_the_checkpoint_is_not_within_the_journal()
+      throws Exception {
+    Files.writeString(directory.resolve("recorder.checkpoint"), "4096");
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+
+    journal.record(Activity.info("file-saved", "File saved"));
+
+    awaitUntil(() -> recorder.messages().size() == 1);
+    assertEquals(List.of("File saved"), recorder.messages());
+  }
+
+  @Test
+  void it_starts_from_the_beginning_if_the_checkpoint_is_not_at_the_start_of_a_frame()
+      throws Exception {
+    appendFrame("{}");
+    appendFrame("{}");
+    Files.writeString(directory.resolve("recorder.checkpoint"), "3");
+    var recorder = new CollectingRecorder();
+
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+
+    awaitUntil(() -> journal.skipped("recorder") == 2);
+    assertTrue(recorder.messages().isEmpty());
+  }
+
+  @Test
+  void it_discards_a_frame_partially_written_after_the_last_checkpoint() throws Exception {
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+    journal.record(Activity.info("file-saved", "File saved"));
+    awaitUntil(() -> journal.checkpoint("recorder") > 0);
+    journal.close();
+    Files.write(
+        directory.resolve("activities.journal"),
+        new byte[] {0, 0, 0, 100, '{', '"'},
+        StandardOpenOption.APPEND);
+    var restarted = new CollectingRecorder();
+
+    journal = new ActivityJournal(directory, Map.of("recorder", restarted));
+    journal.record(Activity.info("file-uploaded", "File uploaded"));
+
+    awaitUntil(() -> restarted.messages().size() == 1);
+    assertEquals(List.of("File uploaded"), restarted.messages());
+    assertEquals(0, journal.skipped("recorder"));
+  }
+
+  @Test
+  void it_appends_every_activity_recorded_concurrently() throws Exception {
+    var recorder = new CollectingRecorder();
+    journal = new ActivityJournal(directory, Map.of("recorder", recorder));
+    var producers = new ArrayList<Thread>();
+    for (int i = 0; i < 8; i++) {
+      int producer = i;
+      var thread =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 250; j++) {
+                  journal.record(Activity.info("file-saved", "File " + producer + "-" + j));
+                }
+              });
+      producers.add(thread);
+      thread.start();
+    }
+    for (var producer : producers) producer.join();
+
+    awaitUntil(() -> recorder.messages().size() == 2_000);
+    assertEquals(2_000, Set.copyOf(recorder.messages()).size());
+  }
+
+  @BeforeEach
+  void let() throws IOException {
+    directory = Files.createTempDirectory("activity-journal");
+  }
+
+  @AfterEach
+  void cleanUp() throws IOException {
+    journal.close();
+    try (var files = Files.walk(directory)) {
+      for (var file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private void appendFrame(String json) throws IOException {
+    var bytes = json.getBytes(StandardCharsets.UTF_8);
+    var frame = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes);
+    Files.write(
+        directory.resolve("activities.journal"),
+        frame.array(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+    assertTrue(condition.getAsBoolean(), "Condition was not met within 5 seconds");
+  }
+
+  private Path directory;
+  private ActivityJournal journal;
+
+  private static final class CollectingRecorder implements ActivityRecorder {
+    private final List<Activity> activities = new CopyOnWriteArrayList<>();
+    private final List<StaticContext> contexts = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release;
+
+    private CollectingRecorder() {
+      this(new CountDownLatch(0));
+    }
+
+    private CollectingRecorder(CountDownLatch release) {
+      this.release = release;
+    }
+
+    @Override
+    public void record(Activity activity) {
+      record(activity, StaticContext.EMPTY);
+    }
+
+    @Override
+    public void record(Activity activity, StaticContext context) {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      activities.add(activity);
+      contexts.add(context);
+    }
+
+    private List<String> messages() {
+      return activities.stream().map(Activity::message).collect(Collectors.toList());
+    }
+  }
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.Map;
+import net.logstash.logback.marker.LogstashMarker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -25,7 +27,7 @@ final class ActivityLoggerTest {
 
     feed.record(activity);
 
-    verify(logger, times(1)).debug(appendEntries(activity.context()), activity.message());
+    verify(logger, times(1)).debug(markerFor(activity), activity.message());
   }
 
   @Test
@@ -51,7 +53,20 @@ final class ActivityLoggerTest {
 
     feed.record(activity);
 
-    verify(logger).info(appendEntries(activity.context()), activity.message());
+    verify(logger).info(markerFor(activity), activity.message());
+  }
+
+  @Test
+  void it_logs_an_informational_activity_with_a_static_context() {
+    when(logger.isInfoEnabled()).thenReturn(true);
+    var context = StaticContext.EMPTY.with(Map.of("service", "customers"));
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    var marker = markerFor(activity);
+    marker.add(context.marker());
+
+    feed.record(activity, context);
+
+    verify(logger).info(marker, activity.message());
   }
 
   @Test
@@ -79,7 +94,7 @@ final class ActivityLoggerTest {
 
     feed.record(activity);
 
-    verify(logger).warn(appendEntries(activity.context()), activity.message());
+    verify(logger).warn(markerFor(activity), activity.message());
   }
 
   @Test
@@ -107,7 +122,7 @@ final class ActivityLoggerTest {
 
     feed.record(activity);
 
-    verify(logger).error(appendEntries(activity.context()), activity.message());
+    verify(logger).error(markerFor(activity), activity.message());
   }
 
   @Test
@@ -135,7 +150,7 @@ final class ActivityLoggerTest {
 
     feed.record(activity);
 
-    verify(logger).trace(appendEntries(activity.context()), activity.message());
+    verify(logger).trace(markerFor(activity), activity.message());
   }
 
   @Test
@@ -148,6 +163,37 @@ final class ActivityLoggerTest {
     verify(logger, times(0)).trace(any(Marker.class), any());
   }
 
+  @Test
+  void it_logs_the_timestamp_and_sequence_of_an_activity() {
+    when(logger.isInfoEnabled()).thenReturn(true);
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    activity.sequence(42);
+    var marker = appendEntries(activity.context());
+    marker.add(appendEntries(Map.of("timestamp", activity.timestamp(), "sequence", 42L)));
+
+    feed.record(activity);
+
+    verify(logger).info(marker, activity.message());
+  }
+
+  @Test
+  void it_does_not_log_the_sequence_of_an_activity_not_added_to_a_feed() {
+    when(logger.isInfoEnabled()).thenReturn(true);
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    var marker = appendEntries(activity.context());
+    marker.add(appendEntries(Map.of("timestamp", activity.timestamp())));
+
+    feed.record(activity);
+
+    verify(logger).info(marker, activity.message());
+  }
+
+  private static LogstashMarker markerFor(Activity activity) {
+    var marker = appendEntries(activity.context());
+    marker.add(appendEntries(ActivityLogger.stampOf(activity)));
+    return marker;
+  }
+
   @BeforeEach
   void let() {
     logger = mock(Logger.class);
@@ -0,0 +1,178 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+final class ActivityPublisherTest {
+  @Test
+  void it_delivers_activities_as_they_are_requested() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber);
+
+    publisher.record(Activity.info("first-activity", "First"));
+    publisher.record(Activity.info("second-activity", "Second"));
+    assertTrue(subscriber.messages.isEmpty());
+
+    subscriber.subscription.request(1);
+    assertEquals(List.of("First"), subscriber.messages);
+
+    subscriber.subscription.request(5);
+    publisher.record(Activity.info("third-activity", "Third"));
+    assertEquals(List.of("First", "Second", "Third"), subscriber.messages);
+  }
+
+  @Test
+  void it_drops_the_newest_activities_when_a_buffer_is_full() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber, 2, ActivityPublisher.Overflow.DROP_NEWEST);
+
+    publisher.record(Activity.info("first-activity", "First"));
+    publisher.record(Activity.info("second-activity", "Second"));
+    publisher.record(Activity.info("third-activity", "Third"));
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertEquals(List.of("First", "Second"), subscriber.messages);
+  }
+
+  @Test
+  void it_drops_the_oldest_activities_when_a_buffer_is_full() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber, 2, ActivityPublisher.Overflow.DROP_OLDEST);
+
+    publisher.record(Activity.info("first-activity", "First"));
+    publisher.record(Activity.info("second-activity", "Second"));
+    publisher.record(Activity.info("third-activity", "Third"));
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertEquals(List.of("Second", "Third"), subscriber.messages);
+  }
+
+  @Test
+  void it_stops_delivering_activities_once_a_subscription_is_cancelled() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    publisher.record(Activity.info("first-activity", "First"));
+    subscriber.subscription.cancel();
+    publisher.record(Activity.info("second-activity", "Second"));
+
+    assertEquals(List.of("First"), subscriber.messages);
+    assertEquals(0, publisher.subscribers());
+  }
+
+  @Test
+  void it_signals_an_error_on_non_positive_requests() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertEquals(0, publisher.subscribers());
+  }
+
+  @Test
+  void it_publishes_activities_added_to_a_feed_and_its_derived_feeds() {
+    var feed = new ActivityFeed(List.of(activity -> {}));
+    var subscriber = new MessagesSubscriber();
+    feed.publisher().subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    feed.add(Activity.info("first-activity", "First"));
+    feed.withContext(Map.of("tenant", "acme")).add(Activity.info("second", "Second"));
+
+    assertTrue(subscriber.awaitMessages(2));
+    assertEquals(List.of("First", "Second"), subscriber.messages);
+  }
+
+  @Test
+  void it_publishes_the_static_context_of_the_feed() {
+    var feed = new ActivityFeed(List.of(activity -> {})).withContext(Map.of("tenant", "acme"));
+    var subscriber = new MessagesSubscriber();
+    feed.publisher().subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    feed.add(Activity.info("first-activity", "First"));
+
+    assertTrue(subscriber.awaitMessages(1));
+    assertEquals(Map.of("tenant", "acme"), subscriber.activities.get(0).staticContext());
+  }
+
+  @Test
+  void it_keeps_unbounded_demand_when_more_is_requested() {
+    var subscriber = new MessagesSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE - 1);
+    publisher.record(Activity.info("first-activity", "First"));
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    publisher.record(Activity.info("second-activity", "Second"));
+
+    assertEquals(List.of("First", "Second"), subscriber.messages);
+  }
+
+  @Test
+  void it_creates_no_snapshot_without_subscribers() {
+    var calls = new AtomicInteger();
+
+    publisher.record(
+        Activity.info("first-activity", "First", (context) -> calls.incrementAndGet()));
+
+    assertEquals(0, calls.get());
+  }
+
+  @Test
+  void it_prevents_empty_buffers() {
+    assertThrows(
+        com.montealegreluis.assertions.IllegalArgumentException.class,
+        () ->
+            publisher.subscribe(
+                new MessagesSubscriber(), 0, ActivityPublisher.Overflow.DROP_NEWEST));
+  }
+
+  private static final class MessagesSubscriber implements Flow.Subscriber<RecordedActivity> {
+    private final List<String> messages = new ArrayList<>();
+    private final List<RecordedActivity> activities = new ArrayList<>();
+    private Flow.Subscription subscription;
+    private Throwable error;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public synchronized void onNext(RecordedActivity activity) {
+      messages.add(activity.message());
+      activities.add(activity);
+      notifyAll();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {}
+
+    private synchronized boolean awaitMessages(int count) {
+      long deadline = System.currentTimeMillis() + 5_000;
+      try {
+        while (messages.size() < count && System.currentTimeMillis() < deadline) wait(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return messages.size() >= count;
+    }
+  }
+
+  private final ActivityPublisher publisher = new ActivityPublisher(Runnable::run);
+}
@@ -107,4 +107,37 @@ final class ActivityTest {
     assertNotEquals(activityC, activityD);
     assertNotEquals(activityC, null);
   }
+
+  @Test
+  void it_knows_when_it_was_created() {
+    long before = ActivityClock.PRECISE.now();
+    var activity = Activity.info("identifier", "A message");
+    long after = ActivityClock.PRECISE.now();
+
+    // the default coarse clock truncates to milliseconds
+    assertTrue(activity.timestamp() >= before - 1_000_000 && activity.timestamp() <= after);
+    assertEquals(0, activity.sequence());
+  }
+
+  @Test
+  void it_keeps_the_sequence_assigned_by_its_first_feed() {
+    var activity = Activity.info("identifier", "A message");
+
+    activity.sequence(1);
+    activity.sequence(2);
+
+    assertEquals(1, activity.sequence());
+  }
+
+  @Test
+  void it_creates_copies_with_a_given_timestamp_and_sequence() {
+    var activity = Activity.info("identifier", "A message");
+
+    var stamped = activity.stamped(1_000, 7);
+
+    assertEquals(activity, stamped);
+    assertEquals(1_000, stamped.timestamp());
+    assertEquals(7, stamped.sequence());
+    assertEquals(0, activity.sequence());
+  }
 }
@@ -0,0 +1,136 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+final class AdaptiveLevelRecorderTest {
+  @Test
+  void it_cannot_be_created_with_a_relief_threshold_above_the_pressure_threshold() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new AdaptiveLevelRecorder(
+                recorder, Duration.ofMillis(1), Duration.ofMillis(2), WINDOW_SIZE));
+  }
+
+  @Test
+  void it_cannot_be_created_with_an_empty_window() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new AdaptiveLevelRecorder(recorder, Duration.ofMillis(2), Duration.ofMillis(1), 0));
+  }
+
+  @Test
+  void it_records_all_activities_when_not_under_pressure() {
+    adaptiveRecorder.record(Activity.trace("method-arguments", "Method call arguments"));
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"));
+
+    assertEquals(2, recorder.activities.size());
+    assertEquals(Level.TRACE, adaptiveRecorder.minimumLevel());
+  }
+
+  @Test
+  void it_raises_the_minimum_level_under_pressure() {
+    recorder.latency = Duration.ofMillis(5);
+
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"));
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"));
+
+    assertEquals(Level.DEBUG, adaptiveRecorder.minimumLevel());
+    var transition = recorder.activities.get(2);
+    assertEquals(Level.WARN, transition.level());
+    assertEquals("Minimum activity level was raised", transition.message());
+  }
+
+  @Test
+  void it_sheds_activities_below_the_minimum_level() {
+    recorder.latency = Duration.ofMillis(5);
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"));
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"));
+
+    adaptiveRecorder.record(Activity.trace("method-arguments", "Method call arguments"));
+
+    assertEquals(3, recorder.activities.size());
+  }
+
+  @Test
+  void it_does_not_raise_the_minimum_level_above_info() {
+    recorder.latency = Duration.ofMillis(5);
+
+    for (int i = 0; i < 10; i++) {
+      adaptiveRecorder.record(Activity.warning("invalid-product-price", "Invalid price"));
+    }
+
+    assertEquals(Level.INFO, adaptiveRecorder.minimumLevel());
+  }
+
+  @Test
+  void it_lowers_the_minimum_level_once_pressure_drops() {
+    recorder.latency = Duration.ofMillis(5);
+    adaptiveRecorder.record(Activity.info("save-customer-profile", "Profile saved"));
+    adaptiveRecorder.record(Activity.info("save-customer-profile", "Profile saved"));
+    recorder.latency = Duration.ZERO;
+
+    adaptiveRecorder.record(Activity.info("save-customer-profile", "Profile saved"));
+    adaptiveRecorder.record(Activity.info("save-customer-profile", "Profile saved"));
+
+    assertEquals(Level.TRACE, adaptiveRecorder.minimumLevel());
+    var transition = recorder.activities.get(recorder.activities.size() - 1);
+    assertEquals("Minimum activity level was lowered", transition.message());
+  }
+
+  @Test
+  void it_records_transitions_with_the_static_context_of_the_feed() {
+    recorder.latency = Duration.ofMillis(5);
+    var context = StaticContext.EMPTY.with(Map.of("service", "checkout"));
+
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"), context);
+    adaptiveRecorder.record(Activity.debug("file-saved", "File saved"), context);
+
+    assertEquals("Minimum activity level was raised", recorder.activities.get(2).message());
+    assertSame(context, recorder.contexts.get(2));
+  }
+
+  @BeforeEach
+  void let() {
+    recorder = new SlowRecorder();
+    adaptiveRecorder =
+        new AdaptiveLevelRecorder(
+            recorder, Duration.ofMillis(1), Duration.ofNanos(500_000), WINDOW_SIZE);
+  }
+
+  private static final int WINDOW_SIZE = 2;
+  private SlowRecorder recorder;
+  private AdaptiveLevelRecorder adaptiveRecorder;
+
+  private static final class SlowRecorder implements ActivityRecorder {
+    private final List<Activity> activities = new ArrayList<>();
+    private final List<StaticContext> contexts = new ArrayList<>();
+    private Duration latency = Duration.ZERO;
+
+    @Override
+    public void record(Activity activity) {
+      record(activity, StaticContext.EMPTY);
+    }
+
+    @Override
+    public void record(Activity activity, StaticContext context) {
+      activities.add(activity);
+      contexts.add(context);
+      if (latency.isZero()) return;
+      try {
+        Thread.sleep(latency.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class ContextBudgetTest {
+  @Test
+  void it_does_not_copy_contexts_when_unlimited() {
+    Map<String, Object> context = Map.of("key", "value");
+
+    assertSame(context, ContextBudget.UNLIMITED.apply(context));
+  }
+
+  @Test
+  void it_prevents_non_positive_limits() {
+    assertThrows(IllegalArgumentException.class, () -> new ContextBudget(0, 10, 10));
+    assertThrows(IllegalArgumentException.class, () -> new ContextBudget(10, -1, 10));
+    assertThrows(IllegalArgumentException.class, () -> new ContextBudget(10, 10, 0));
+  }
+
+  @Test
+  void it_keeps_contexts_within_budget_as_they_are() {
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("customerId", 42);
+    context.put("tags", List.of("gold", "vip"));
+    context.put("address", Map.of("city", "Leon"));
+
+    assertEquals(context, budget.apply(context));
+  }
+
+  @Test
+  void it_truncates_long_strings() {
+    var truncated = budget.apply(Map.of("payload", "x".repeat(100)));
+
+    assertEquals("xxxxxxxxxx... (100 characters)", truncated.get("payload"));
+  }
+
+  @Test
+  void it_truncates_large_collections() {
+    var truncated = budget.apply(Map.of("ids", Collections.nCopies(100_000, 7)));
+
+    assertEquals(List.of(7, 7, 7, 7, 7, "... (100000 elements)"), truncated.get("ids"));
+  }
+
+  @Test
+  void it_truncates_large_nested_maps() {
+    Map<String, Object> nested = new LinkedHashMap<>();
+    for (int i = 0; i < 20; i++) nested.put("key" + i, i);
+
+    var truncated = budget.apply(Map.of("nested", nested));
+
+    @SuppressWarnings("unchecked")
+    var entries = (Map<String, Object>) truncated.get("nested");
+    assertEquals(6, entries.size());
+    assertEquals("20 entries", entries.get(ContextBudget.TRUNCATED));
+  }
+
+  @Test
+  void it_omits_entries_once_the_context_goes_over_its_maximum_bytes() {
+    var small = new ContextBudget(20, 5, 10);
+    Map<String, Object> context = new LinkedHashMap<>();
+    context.put("first", "0123456789");
+    context.put("second", "0123456789");
+    context.put("third", "0123456789");
+
+    var truncated = small.apply(context);
+
+    assertEquals("0123456789", truncated.get("first"));
+    assertFalse(truncated.containsKey("third"));
+    assertEquals("3 entries", truncated.get(ContextBudget.TRUNCATED));
+  }
+
+  @Test
+  void it_truncates_collections_with_an_unlimited_amount_of_elements() {
+    var unlimitedElements = new ContextBudget(1024, Integer.MAX_VALUE, 10);
+
+    var truncated = unlimitedElements.apply(Map.of("prices", List.of(10, 20, 30)));
+
+    assertEquals(List.of(10, 20, 30), truncated.get("prices"));
+  }
+
+  @Test
+  void it_counts_the_utf8_bytes_of_strings() {
+    var small = new ContextBudget(20, 5, 100);
+
+    var truncated = small.apply(Map.of("name", "\u00e9".repeat(10)));
+
+    assertEquals("\u00e9".repeat(6) + "... (10 characters)", truncated.get("name"));
+  }
+
+  @Test
+  void it_does_not_split_surrogate_pairs() {
+    var small = new ContextBudget(13, 5, 100);
+
+    var truncated = small.apply(Map.of("face", "\ud83d\ude00\ud83d\ude00"));
+
+    assertEquals("\ud83d\ude00... (4 characters)", truncated.get("face"));
+  }
+
+  @Test
+  void it_keeps_exception_contexts_without_reading_their_stack_trace() {
+    var exception = new CountingException();
+    var context = ExceptionContextFactory.contextFrom(exception);
+
+    var truncated = budget.apply(Map.of("exception", context));
+
+    assertSame(context, truncated.get("exception"));
+    assertEquals(0, exception.stackTraceReads());
+  }
+
+  private final ContextBudget budget = new ContextBudget(1024, 5, 10);
+}
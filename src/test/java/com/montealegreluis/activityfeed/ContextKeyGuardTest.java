@@ -0,0 +1,185 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+final class ContextKeyGuardTest {
+  @Test
+  void it_records_activities_within_the_maximum_amount_of_keys_as_they_are() {
+    var activity = pageViewed("/home");
+
+    guard.record(activity);
+
+    assertEquals(activity, recorded.get(0));
+    assertEquals(activity.context(), recorded.get(0).context());
+  }
+
+  @Test
+  void it_runs_the_context_factory_only_once() {
+    var calls = new AtomicInteger();
+
+    guard.record(
+        Activity.info(
+            "page-viewed",
+            "Page was viewed",
+            (context) -> context.put("run", calls.incrementAndGet())));
+    recorded.get(0).context();
+
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void it_folds_context_entries_using_the_extra_key() {
+    guard.record(
+        Activity.info(
+            "page-viewed", "Page was viewed", (context) -> context.put(ContextKeyGuard.EXTRA, 1)));
+
+    var context = contextOf(recorded.get(0));
+    assertEquals(
+        List.of(Map.of("key", ContextKeyGuard.EXTRA, "value", 1)),
+        context.get(ContextKeyGuard.EXTRA));
+    assertEquals(1, recorded.size());
+  }
+
+  @Test
+  void it_bounds_the_keys_of_identifiers_past_the_maximum_it_tracks() {
+    for (int i = 0; i < 10_000; i++) guard.record(Activity.info("page-" + i, "Page was viewed"));
+
+    guard.record(pageViewed("/home"));
+    guard.record(pageViewed("/about"));
+
+    var context = contextOf(recorded.get(recorded.size() - 1));
+    assertEquals(List.of(Map.of("key", "/about", "value", 1)), context.get(ContextKeyGuard.EXTRA));
+  }
+
+  @Test
+  void it_folds_keys_over_the_maximum_into_an_extra_entry() {
+    guard.record(pageViewed("/home"));
+    guard.record(pageViewed("/about"));
+    guard.record(pageViewed("/pricing"));
+
+    var context = contextOf(recorded.get(recorded.size() - 1));
+    assertEquals(
+        List.of("identifier", "userId", ContextKeyGuard.EXTRA), List.copyOf(context.keySet()));
+    assertEquals(
+        List.of(Map.of("key", "/pricing", "value", 1)), context.get(ContextKeyGuard.EXTRA));
+  }
+
+  @Test
+  void it_keeps_accepting_the_keys_it_already_knows() {
+    guard.record(pageViewed("/home"));
+    guard.record(pageViewed("/about"));
+    guard.record(pageViewed("/home"));
+
+    var context = contextOf(recorded.get(recorded.size() - 1));
+    assertEquals(1, context.get("/home"));
+    assertFalse(context.containsKey(ContextKeyGuard.EXTRA));
+  }
+
+  @Test
+  void it_records_a_single_warning_per_identifier() {
+    guard.record(pageViewed("/home"));
+    guard.record(pageViewed("/about"));
+    guard.record(pageViewed("/pricing"));
+    guard.record(pageViewed("/contact"));
+
+    var warnings =
+        recorded.stream()
+            .filter((activity) -> activity.identifier().value().equals("context-keys-exceeded"))
+            .count();
+    assertEquals(1, warnings);
+    assertEquals(5, recorded.size());
+  }
+
+  @Test
+  void it_records_the_warning_with_the_static_context_of_the_feed() {
+    List<StaticContext> contexts = new ArrayList<>();
+    var contextGuard =
+        new ContextKeyGuard(
+            new ActivityRecorder() {
+              @Override
+              public void record(Activity activity) {
+                record(activity, StaticContext.EMPTY);
+              }
+
+              @Override
+              public void record(Activity activity, StaticContext context) {
+                contexts.add(context);
+              }
+            },
+            2);
+    var context = StaticContext.EMPTY.with(Map.of("service", "checkout"));
+
+    contextGuard.record(pageViewed("/home"), context);
+    contextGuard.record(pageViewed("/about"), context);
+
+    assertEquals(3, contexts.size());
+    assertTrue(contexts.stream().allMatch((recorded) -> recorded == context));
+  }
+
+  @Test
+  void it_keeps_the_sequence_and_timestamp_of_guarded_activities() {
+    guard.record(pageViewed("/home"));
+    guard.record(pageViewed("/about"));
+    var activity = pageViewed("/pricing");
+    activity.sequence(42);
+
+    guard.record(activity);
+
+    var guarded = recorded.get(recorded.size() - 1);
+    assertEquals(42, guarded.sequence());
+    assertEquals(activity.timestamp(), guarded.timestamp());
+  }
+
+  @Test
+  void it_does_not_check_activities_created_from_definitions() {
+    var definition = ActivityDefinition.info("page-viewed", "Page was viewed", "a", "b", "c");
+    var activity = definition.activity(1, 2, 3);
+
+    guard.record(activity);
+
+    assertSame(activity, recorded.get(0));
+  }
+
+  @Test
+  void it_does_not_read_the_stack_trace_of_activities_filtered_out_after_it() {
+    var exception = new CountingException();
+    var routing = new RoutingRecorder(List.of(RoutingRecorder.Route.of("audit-*", recorded::add)));
+    var filtering = new ContextKeyGuard(routing, 1);
+
+    filtering.record(
+        Activity.error(
+            "server-error",
+            "Server error",
+            (context) -> {
+              context.put("requestId", "a2a8c2f4");
+              context.put("exception", ExceptionContextFactory.contextFrom(exception));
+            }));
+
+    assertTrue(recorded.isEmpty());
+    assertEquals(0, exception.stackTraceReads());
+  }
+
+  private Activity pageViewed(String path) {
+    return Activity.info(
+        "page-viewed",
+        "Page was viewed",
+        (context) -> {
+          context.put("userId", "5fa21160");
+          context.put(path, 1);
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> contextOf(Activity activity) {
+    return (Map<String, Object>) activity.context().get("context");
+  }
+
+  private final List<Activity> recorded = new ArrayList<>();
+  private final ContextKeyGuard guard = new ContextKeyGuard(recorded::add, 2);
+}
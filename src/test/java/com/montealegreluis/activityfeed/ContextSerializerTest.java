@@ -5,6 +5,7 @@ import static com.montealegreluis.activityfeed.ContextAssertions.assertContextVa
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.montealegreluis.assertions.IllegalArgumentException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +35,58 @@ final class ContextSerializerTest {
     assertContextValueEquals(age, "age", context);
   }
 
+  @Test
+  void it_stops_serializing_values_over_its_budget() {
+    var budgeted = new ContextSerializer(new ObjectMapper(), new ContextBudget(64, 100, 100));
+
+    var context =
+        budgeted.toContextMap(new PersonalInformation("x".repeat(5 * 1024 * 1024), 20));
+
+    assertContextSize(2, context);
+    assertContextValueEquals("over 64 bytes", "truncated", context);
+    assertContextValueEquals(PersonalInformation.class.getName(), "type", context);
+  }
+
+  @Test
+  void it_truncates_values_within_its_budget() {
+    var budgeted = new ContextSerializer(new ObjectMapper(), new ContextBudget(1024, 100, 4));
+
+    var context = budgeted.toContextMap(new PersonalInformation("Jane Doe", 20));
+
+    assertContextValueEquals("Jane... (8 characters)", "name", context);
+    assertContextValueEquals(20, "age", context);
+  }
+
+  @Test
+  void it_does_not_change_the_given_object_mapper() {
+    var mapper = new ObjectMapper();
+
+    new ContextSerializer(mapper);
+
+    assertTrue(mapper.isEnabled(SerializationFeature.FAIL_ON_EMPTY_BEANS));
+  }
+
+  @Test
+  void it_extracts_context_from_warmed_up_types() {
+    var warmedUp = serializer.warmUp(PersonalInformation.class);
+
+    var context = warmedUp.toContextMap(new PersonalInformation("Jane Doe", 20));
+
+    assertSame(serializer, warmedUp);
+    assertContextValueEquals("Jane Doe", "name", context);
+  }
+
+  @Test
+  void it_caches_the_serializers_of_warmed_up_types() {
+    serializer.warmUp(PersonalInformation.class);
+    int warm = serializer.cachedSerializers();
+
+    serializer.toContextMap(new PersonalInformation("Jane Doe", 20));
+
+    assertTrue(warm > 0);
+    assertEquals(warm, serializer.cachedSerializers());
+  }
+
   @BeforeEach
   void let() {
     serializer = new ContextSerializer(new ObjectMapper());
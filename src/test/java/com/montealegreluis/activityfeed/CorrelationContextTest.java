@@ -0,0 +1,80 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+final class CorrelationContextTest {
+  @Test
+  void it_is_empty_by_default() {
+    assertTrue(CorrelationContext.current().isEmpty());
+  }
+
+  @Test
+  void it_prevents_blank_keys_and_null_values() {
+    var context = CorrelationContext.empty();
+
+    assertThrows(IllegalArgumentException.class, () -> context.with(" ", "value"));
+    assertThrows(IllegalArgumentException.class, () -> context.with("requestId", null));
+  }
+
+  @Test
+  void it_prevents_keys_used_by_activities() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CorrelationContext.empty().with("context", "value"));
+  }
+
+  @Test
+  void it_keeps_the_entries_of_previous_snapshots() {
+    var request = CorrelationContext.empty().with("requestId", "a2a8c2f4");
+
+    var trace = request.with("traceId", "5b8aa5a2");
+
+    assertEquals(1, request.entries().size());
+    assertEquals("a2a8c2f4", trace.entries().get("requestId"));
+    assertEquals("5b8aa5a2", trace.entries().get("traceId"));
+  }
+
+  @Test
+  void it_is_current_only_while_running_an_action() {
+    var context = CorrelationContext.empty().with("requestId", "a2a8c2f4");
+    var current = new AtomicReference<CorrelationContext>();
+
+    context.run(() -> current.set(CorrelationContext.current()));
+
+    assertSame(context, current.get());
+    assertTrue(CorrelationContext.current().isEmpty());
+  }
+
+  @Test
+  void it_is_captured_by_activities_created_while_it_is_current() throws Exception {
+    var context = CorrelationContext.empty().with("requestId", "a2a8c2f4");
+
+    var activity = context.call(() -> Activity.info("search-products", "Search completed"));
+
+    assertSame(context, activity.correlation());
+    var json = new String(new JsonActivityEncoder().encode(activity), StandardCharsets.UTF_8);
+    assertTrue(json.endsWith(",\"requestId\":\"a2a8c2f4\"}"), json);
+  }
+
+  @Test
+  void it_is_handed_off_to_other_threads() throws Exception {
+    var context = CorrelationContext.empty().with("requestId", "a2a8c2f4");
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var activity =
+          executor
+              .submit(context.wrap(() -> Activity.info("search-products", "Search completed")))
+              .get();
+
+      assertSame(context, activity.correlation());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.montealegreluis.activityfeed;
+
+import static com.montealegreluis.activityfeed.ContextAssertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class ExceptionContextTest {
+  @Test
+  void it_does_not_read_the_stack_trace_until_it_is_used() {
+    var exception = new CountingException();
+
+    var context = ExceptionContext.of(exception);
+    assertEquals(0, exception.stackTraceReads());
+
+    context.get("trace");
+    assertEquals(1, exception.stackTraceReads());
+  }
+
+  @Test
+  void it_serializes_the_same_information_it_contains() throws Exception {
+    var exception = new IllegalStateException("Invalid state", new RuntimeException("Cause"));
+    var context = ExceptionContext.of(exception);
+
+    var streamed = mapper.writeValueAsString(context);
+    var materialized = mapper.writeValueAsString(new LinkedHashMap<>(context));
+
+    assertEquals(materialized, streamed);
+  }
+
+  @Test
+  void it_streams_its_frames_without_materializing_them() throws Exception {
+    var exception = new CountingException();
+    var context = ExceptionContext.of(exception);
+
+    mapper.writeValueAsString(context);
+    context.get("trace");
+
+    // the second read comes from materializing the entries after serialization
+    assertEquals(2, exception.stackTraceReads());
+  }
+
+  @Test
+  void it_captures_the_call_site_without_an_exception() {
+    var context = ExceptionContextFactory.callSite();
+
+    assertContextHasNoKey("message", context);
+    assertContextValueEquals(ExceptionContextTest.class.getName(), "class", context);
+    @SuppressWarnings("unchecked")
+    var trace = (List<String>) context.get("trace");
+    assertTrue(trace.get(0).contains("it_captures_the_call_site_without_an_exception"));
+  }
+
+  @Test
+  void it_skips_the_builder_frames_when_capturing_the_call_site() {
+    var activity =
+        ActivityBuilder.anInformationalActivity()
+            .withIdentifier("product-searched")
+            .withMessage("Product was searched")
+            .withCallSite()
+            .build();
+
+    @SuppressWarnings("unchecked")
+    var context = (Map<String, Object>) activity.context().get("context");
+    @SuppressWarnings("unchecked")
+    var callSite = (Map<String, Object>) context.get("callSite");
+    assertContextValueEquals(ExceptionContextTest.class.getName(), "class", callSite);
+  }
+
+  private final ObjectMapper mapper = new ObjectMapper();
+}
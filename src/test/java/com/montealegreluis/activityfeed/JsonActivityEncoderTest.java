@@ -0,0 +1,116 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class JsonActivityEncoderTest {
+  @Test
+  void it_cannot_be_created_without_an_object_mapper() {
+    assertThrows(IllegalArgumentException.class, () -> new JsonActivityEncoder(null));
+  }
+
+  @Test
+  void it_encodes_an_activity_without_context() {
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+
+    var json = new String(encoder.encode(activity), StandardCharsets.UTF_8);
+
+    assertEquals(
+        "{\"level\":\"INFO\",\"message\":\"Customer profile was saved\","
+            + "\"timestamp\":"
+            + activity.timestamp()
+            + ",\"context\":{\"identifier\":\"save-customer-profile\"}}",
+        json);
+  }
+
+  @Test
+  void it_encodes_an_activity_with_context() {
+    var activity =
+        Activity.warning(
+            "invalid-product-price",
+            "Product price is invalid",
+            (context) -> context.put("productPrice", -100));
+
+    var json = new String(encoder.encode(activity), StandardCharsets.UTF_8);
+
+    assertEquals(
+        "{\"level\":\"WARN\",\"message\":\"Product price is invalid\","
+            + "\"timestamp\":"
+            + activity.timestamp()
+            + ",\"context\":{\"identifier\":\"invalid-product-price\",\"productPrice\":-100}}",
+        json);
+  }
+
+  @Test
+  void it_encodes_an_activity_with_a_static_context() {
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    var parent = StaticContext.EMPTY.with(Map.of("service", "customers"));
+    var context = parent.with(Map.of("version", "1.0.0"));
+
+    var json = new String(encoder.encode(activity, context), StandardCharsets.UTF_8);
+
+    assertEquals(
+        "{\"level\":\"INFO\",\"message\":\"Customer profile was saved\","
+            + "\"timestamp\":"
+            + activity.timestamp()
+            + ",\"context\":{\"identifier\":\"save-customer-profile\"},"
+            + "\"service\":\"customers\",\"version\":\"1.0.0\"}",
+        json);
+  }
+
+  @Test
+  void it_fails_to_encode_a_context_value_that_cannot_be_JSON_encoded() {
+    var activity =
+        Activity.error(
+            "server-error", "Server error", (context) -> context.put("value", new Object()));
+
+    assertThrows(SerializerFailure.class, () -> encoder.encode(activity));
+  }
+
+  @Test
+  void it_truncates_contexts_over_its_budget() {
+    var budgeted = new JsonActivityEncoder(new ObjectMapper(), new ContextBudget(1024, 2, 5));
+    var activity =
+        Activity.info(
+            "import-customers",
+            "Customers were imported",
+            (context) -> {
+              context.put("source", "customers.csv");
+              context.put("ids", List.of(1, 2, 3));
+            });
+
+    var json = new String(budgeted.encode(activity), StandardCharsets.UTF_8);
+
+    assertEquals(
+        "{\"level\":\"INFO\",\"message\":\"Customers were imported\","
+            + "\"timestamp\":"
+            + activity.timestamp()
+            + ",\"context\":{\"identifier\":\"import-customers\","
+            + "\"source\":\"custo... (13 characters)\","
+            + "\"ids\":[1,2,\"... (3 elements)\"]}}",
+        json);
+  }
+
+  @Test
+  void it_encodes_the_sequence_of_activities_added_to_a_feed() {
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    new ActivityFeed(List.of(recorded -> {})).withSequence().add(activity);
+
+    var json = new String(encoder.encode(activity), StandardCharsets.UTF_8);
+
+    assertEquals(
+        "{\"level\":\"INFO\",\"message\":\"Customer profile was saved\","
+            + "\"timestamp\":"
+            + activity.timestamp()
+            + ",\"sequence\":1,\"context\":{\"identifier\":\"save-customer-profile\"}}",
+        json);
+  }
+
+  private final JsonActivityEncoder encoder = new JsonActivityEncoder(new ObjectMapper());
+}
@@ -0,0 +1,49 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class JsonLinesRecorderTest {
+  @Test
+  void it_writes_every_activity_as_a_line_of_json() {
+    var first = Activity.info("save-customer-profile", "Customer profile was saved");
+    var second = Activity.error("server-error", "Server error");
+
+    recorder.record(first);
+    recorder.record(second);
+
+    var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(new String(encoder.encode(first), StandardCharsets.UTF_8), lines[0]);
+    assertEquals(new String(encoder.encode(second), StandardCharsets.UTF_8), lines[1]);
+  }
+
+  @Test
+  void it_writes_the_static_context_of_an_activity() {
+    var activity = Activity.info("save-customer-profile", "Customer profile was saved");
+    var context = StaticContext.EMPTY.with(Map.of("service", "customers"));
+
+    recorder.record(activity, context);
+
+    assertEquals(
+        new String(encoder.encode(activity, context), StandardCharsets.UTF_8) + "\n",
+        output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void it_is_used_by_feeds_without_a_logging_backend() {
+    var feed = ActivityFeed.withJsonLines(output).withSequence();
+
+    feed.add(Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    assertTrue(output.toString(StandardCharsets.UTF_8).contains("\"sequence\":1"));
+  }
+
+  private final JsonActivityEncoder encoder = new JsonActivityEncoder();
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final JsonLinesRecorder recorder = new JsonLinesRecorder(output, encoder);
+}
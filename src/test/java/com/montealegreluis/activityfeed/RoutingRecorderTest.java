@@ -0,0 +1,105 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.activityfeed.RoutingRecorder.Route;
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+final class RoutingRecorderTest {
+  @Test
+  void it_routes_activities_by_identifier_prefix() {
+    router.record(Activity.info("audit-login", "User logged in"));
+    router.record(Activity.info("search-products", "Products were searched"));
+
+    assertEquals(List.of("User logged in"), audit);
+    assertEquals(List.of("Products were searched"), metrics);
+  }
+
+  @Test
+  void it_routes_activities_by_level() {
+    router.record(Activity.debug("search-products", "Products query"));
+    router.record(Activity.warning("search-products", "Search index is stale"));
+
+    assertEquals(List.of("Search index is stale"), metrics);
+  }
+
+  @Test
+  void it_routes_activities_matching_an_exact_identifier() {
+    router.record(Activity.error("payment-declined", "Payment was declined"));
+    router.record(Activity.error("payment-declined-twice", "Payment was declined again"));
+
+    assertEquals(List.of("Payment was declined"), alerts);
+  }
+
+  @Test
+  void it_records_activities_once_per_recorder_even_if_several_routes_match() {
+    var recorder =
+        new RoutingRecorder(
+            List.of(Route.of("audit-*", auditRecorder), Route.of("audit-login", auditRecorder)));
+
+    recorder.record(Activity.info("audit-login", "User logged in"));
+
+    assertEquals(List.of("User logged in"), audit);
+  }
+
+  @Test
+  void it_discards_activities_without_routes() {
+    router.record(Activity.info("unrouted-activity", "Nobody listens"));
+
+    assertTrue(audit.isEmpty());
+    assertTrue(metrics.isEmpty());
+    assertTrue(alerts.isEmpty());
+  }
+
+  @Test
+  void it_passes_the_static_context_to_the_routed_recorders() {
+    var contexts = new ArrayList<StaticContext>();
+    var recorder =
+        new RoutingRecorder(
+            List.of(
+                Route.of(
+                    "audit-*",
+                    new ActivityRecorder() {
+                      @Override
+                      public void record(Activity activity) {}
+
+                      @Override
+                      public void record(Activity activity, StaticContext context) {
+                        contexts.add(context);
+                      }
+                    })));
+    var context = StaticContext.EMPTY.with(Map.of("service", "search"));
+
+    recorder.record(Activity.info("audit-login", "User logged in"), context);
+
+    assertEquals(List.of(context), contexts);
+  }
+
+  @Test
+  void it_prevents_routes_without_recorders_or_levels() {
+    assertThrows(IllegalArgumentException.class, () -> Route.of("audit-*"));
+    assertThrows(
+        IllegalArgumentException.class, () -> Route.of("audit-*", EnumSet.noneOf(Level.class)));
+    assertThrows(IllegalArgumentException.class, () -> Route.of(" ", auditRecorder));
+  }
+
+  private final List<String> audit = new ArrayList<>();
+  private final List<String> metrics = new ArrayList<>();
+  private final List<String> alerts = new ArrayList<>();
+  private final ActivityRecorder auditRecorder = activity -> audit.add(activity.message());
+  private final RoutingRecorder router =
+      new RoutingRecorder(
+          List.of(
+              Route.of("audit-*", auditRecorder),
+              Route.of(
+                  "search-*",
+                  EnumSet.of(Level.INFO, Level.WARN),
+                  activity -> metrics.add(activity.message())),
+              Route.of("payment-declined", activity -> alerts.add(activity.message()))));
+}
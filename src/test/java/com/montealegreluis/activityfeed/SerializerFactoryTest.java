@@ -14,7 +14,7 @@ final class SerializerFactoryTest {
   @Test
   void it_masks_sensitive_values_with_default_mask() {
     module.addSerializer(SerializerFactory.forType(MaskedValue.class));
-    mapper.registerModule(module);
+    var serializer = new ContextSerializer(mapper.registerModule(module));
     var fullName = new FullName("Jane Doe");
 
     var context = serializer.toContextMap(new SerializerFactoryTest.Passport(fullName));
@@ -26,7 +26,7 @@ final class SerializerFactoryTest {
   @Test
   void it_masks_sensitive_values_with_custom_mask() {
     module.addSerializer(SerializerFactory.forType(MaskedValue.class, "REDACTED"));
-    mapper.registerModule(module);
+    var serializer = new ContextSerializer(mapper.registerModule(module));
     var fullName = new FullName("Jane Doe");
 
     var context = serializer.toContextMap(new SerializerFactoryTest.Passport(fullName));
@@ -47,7 +47,7 @@ final class SerializerFactoryTest {
                       + "*****"
                       + stringValue.substring(stringValue.length() - 1));
             }));
-    mapper.registerModule(module);
+    var serializer = new ContextSerializer(mapper.registerModule(module));
     var fullName = new FullName("Jane Doe");
 
     var context = serializer.toContextMap(new SerializerFactoryTest.Passport(fullName));
@@ -60,7 +60,6 @@ final class SerializerFactoryTest {
   void let() {
     module = new SimpleModule();
     mapper = new ObjectMapper();
-    serializer = new ContextSerializer(mapper);
   }
 
   private static final class Passport {
@@ -72,6 +71,5 @@ final class SerializerFactoryTest {
   }
 
   private ObjectMapper mapper;
-  private ContextSerializer serializer;
   private SimpleModule module;
 }
@@ -0,0 +1,184 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+final class ShardedRecorderTest {
+  @Test
+  void it_records_the_activities_of_every_thread() throws Exception {
+    var recorded = Collections.synchronizedList(new ArrayList<Activity>());
+    var recorder = new ShardedRecorder(List.of(recorded::add));
+    var feed = new ActivityFeed(List.of(recorder));
+    var producers = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      var producer =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 1_000; j++) feed.add(Activity.info("product-searched", "S"));
+              });
+      producers.add(producer);
+      producer.start();
+    }
+    for (var producer : producers) producer.join();
+
+    recorder.close();
+
+    assertEquals(4_000, recorded.size());
+    assertEquals(0, recorder.dropped());
+  }
+
+  @Test
+  void it_sorts_the_activities_drained_together_by_sequence() throws Exception {
+    var recorded = Collections.synchronizedList(new ArrayList<Long>());
+    var firstDelivered = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var recorder =
+        new ShardedRecorder(
+            List.of(
+                activity -> {
+                  recorded.add(activity.sequence());
+                  firstDelivered.countDown();
+                  await(release);
+                }),
+            16,
+            ShardedRecorder.Ordering.SEQUENCE);
+    recorder.record(activityWithSequence(100));
+    assertTrue(firstDelivered.await(5, TimeUnit.SECONDS));
+
+    for (long sequence : new long[] {3, 1, 2}) {
+      var producer = new Thread(() -> recorder.record(activityWithSequence(sequence)));
+      producer.start();
+      producer.join();
+    }
+    release.countDown();
+    recorder.close();
+
+    assertEquals(List.of(100L, 1L, 2L, 3L), recorded);
+  }
+
+  @Test
+  void it_drops_activities_when_a_thread_buffer_is_full() throws Exception {
+    var release = new CountDownLatch(1);
+    var recorder =
+        new ShardedRecorder(
+            List.of(activity -> await(release)), 2, ShardedRecorder.Ordering.ARRIVAL);
+    for (int i = 0; i < 10; i++) recorder.record(Activity.info("product-searched", "S"));
+
+    assertTrue(recorder.dropped() > 0);
+    release.countDown();
+    recorder.close();
+  }
+
+  @Test
+  void it_drops_activities_once_closed() {
+    var recorded = new ArrayList<Activity>();
+    var recorder = new ShardedRecorder(List.of(recorded::add));
+    recorder.close();
+
+    recorder.record(Activity.info("product-searched", "S"));
+
+    assertEquals(1, recorder.dropped());
+    assertTrue(recorded.isEmpty());
+  }
+
+  @Test
+  void it_accounts_for_every_activity_recorded_while_closing() throws Exception {
+    var recorded = Collections.synchronizedList(new ArrayList<Activity>());
+    var recorder =
+        new ShardedRecorder(List.of(recorded::add), 1_024, ShardedRecorder.Ordering.ARRIVAL);
+    var producers = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      var producer =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 5_000; j++) {
+                  recorder.record(Activity.info("product-searched", "S"));
+                }
+              });
+      producers.add(producer);
+      producer.start();
+    }
+
+    recorder.close();
+    for (var producer : producers) producer.join();
+
+    assertEquals(20_000, recorded.size() + recorder.dropped());
+  }
+
+  @Test
+  void it_parks_while_idle_and_wakes_up_when_an_activity_is_recorded() throws Exception {
+    var recorded = new CountDownLatch(1);
+    var recorder = new ShardedRecorder(List.of(activity -> recorded.countDown()));
+
+    assertTrue(awaitParked(recorder));
+    recorder.record(Activity.info("product-searched", "S"));
+
+    assertTrue(recorded.await(5, TimeUnit.SECONDS));
+    recorder.close();
+  }
+
+  @Test
+  void it_creates_the_context_on_the_thread_recording_the_activity() {
+    var factoryThread = new AtomicReference<Thread>();
+    var recorded = Collections.synchronizedList(new ArrayList<Activity>());
+    var recorder = new ShardedRecorder(List.of(recorded::add));
+
+    recorder.record(
+        Activity.info(
+            "product-searched",
+            "S",
+            (context) -> {
+              factoryThread.set(Thread.currentThread());
+              context.put("query", "shoes");
+            }));
+    recorder.close();
+
+    assertSame(Thread.currentThread(), factoryThread.get());
+    Map<String, Object> context = new LinkedHashMap<>();
+    recorded.get(0).addEntries(context);
+    assertEquals(Map.of("query", "shoes"), context);
+  }
+
+  @Test
+  void it_prevents_invalid_shard_capacities() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ShardedRecorder(List.of(activity -> {}), 0, ShardedRecorder.Ordering.ARRIVAL));
+  }
+
+  private static boolean awaitParked(ShardedRecorder recorder) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      for (var thread : Thread.getAllStackTraces().keySet()) {
+        if (LockSupport.getBlocker(thread) == recorder) return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  private static Activity activityWithSequence(long sequence) {
+    var activity = Activity.info("product-searched", "Products were searched");
+    activity.sequence(sequence);
+    return activity;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
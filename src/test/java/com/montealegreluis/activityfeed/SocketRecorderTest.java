@@ -0,0 +1,141 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+final class SocketRecorderTest {
+  @Test
+  void it_sends_newline_delimited_activities() throws IOException {
+    server = new ServerSocket(0);
+    recorder = recorderFor(server.getLocalPort(), SocketRecorder.Framing.NEWLINE_DELIMITED, 10);
+
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    recorder.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+
+    try (Socket client = server.accept()) {
+      var lines = linesFrom(client);
+      assertEquals("Customer profile was saved", messageIn(lines.readLine()));
+      assertEquals("Product price is invalid", messageIn(lines.readLine()));
+    }
+  }
+
+  @Test
+  void it_sends_every_activity_in_a_burst() throws IOException {
+    server = new ServerSocket(0);
+    recorder = recorderFor(server.getLocalPort(), SocketRecorder.Framing.NEWLINE_DELIMITED, 5_000);
+
+    for (int i = 0; i < 5_000; i++) {
+      recorder.record(Activity.info("save-customer-profile", "Customer profile " + i));
+    }
+
+    try (Socket client = server.accept()) {
+      var lines = linesFrom(client);
+      for (int i = 0; i < 5_000; i++) {
+        assertEquals("Customer profile " + i, messageIn(lines.readLine()));
+      }
+    }
+  }
+
+  @Test
+  void it_sends_length_prefixed_activities() throws IOException {
+    server = new ServerSocket(0);
+    recorder = recorderFor(server.getLocalPort(), SocketRecorder.Framing.LENGTH_PREFIXED, 10);
+
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    try (Socket client = server.accept()) {
+      var input = new DataInputStream(client.getInputStream());
+      var frame = new byte[input.readInt()];
+      input.readFully(frame);
+      var json = new String(frame, StandardCharsets.UTF_8);
+      assertEquals("Customer profile was saved", messageIn(json));
+    }
+  }
+
+  @Test
+  void it_reconnects_once_the_agent_is_available() throws IOException {
+    int port;
+    try (var unavailable = new ServerSocket(0)) {
+      port = unavailable.getLocalPort();
+    }
+    recorder = recorderFor(port, SocketRecorder.Framing.NEWLINE_DELIMITED, 10);
+
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    server = new ServerSocket(port);
+
+    try (Socket client = server.accept()) {
+      assertEquals("Customer profile was saved", messageIn(linesFrom(client).readLine()));
+    }
+  }
+
+  @Test
+  void it_drops_activities_when_its_buffer_is_full() throws IOException {
+    int port;
+    try (var unavailable = new ServerSocket(0)) {
+      port = unavailable.getLocalPort();
+    }
+    recorder = recorderFor(port, SocketRecorder.Framing.NEWLINE_DELIMITED, 1);
+
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    assertEquals(1, recorder.dropped());
+  }
+
+  @Test
+  void it_counts_the_activities_not_sent_before_closing() throws IOException {
+    int port;
+    try (var unavailable = new ServerSocket(0)) {
+      port = unavailable.getLocalPort();
+    }
+    recorder = recorderFor(port, SocketRecorder.Framing.NEWLINE_DELIMITED, 10);
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+
+    recorder.close();
+
+    assertEquals(2, recorder.dropped());
+  }
+
+  @AfterEach
+  void closeSockets() throws IOException {
+    if (recorder != null) recorder.close();
+    if (server != null) server.close();
+  }
+
+  private BufferedReader linesFrom(Socket client) throws IOException {
+    var input = new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8);
+    return new BufferedReader(input);
+  }
+
+  private String messageIn(String json) throws IOException {
+    return mapper.readTree(json).get("message").asText();
+  }
+
+  private SocketRecorder recorderFor(int port, SocketRecorder.Framing framing, int capacity)
+      throws IOException {
+    return new SocketRecorder(
+        new InetSocketAddress("localhost", port),
+        new JsonActivityEncoder(),
+        framing,
+        capacity,
+        Duration.ofMillis(10),
+        Duration.ofMillis(50));
+  }
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private ServerSocket server;
+  private SocketRecorder recorder;
+}
@@ -0,0 +1,57 @@
+package com.montealegreluis.activityfeed;
+
+import static com.montealegreluis.activityfeed.ContextAssertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class StaticContextTest {
+  @Test
+  void it_prevents_null_entries() {
+    assertThrows(IllegalArgumentException.class, () -> StaticContext.EMPTY.with(null));
+  }
+
+  @Test
+  void it_prevents_blank_keys() {
+    assertThrows(
+        IllegalArgumentException.class, () -> StaticContext.EMPTY.with(Map.of(" ", "search")));
+  }
+
+  @Test
+  void it_prevents_keys_used_by_activities() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> StaticContext.EMPTY.with(Map.of("message", "search")));
+    assertThrows(
+        IllegalArgumentException.class, () -> StaticContext.EMPTY.with(Map.of("timestamp", 1)));
+    assertThrows(
+        IllegalArgumentException.class, () -> StaticContext.EMPTY.with(Map.of("sequence", 1)));
+  }
+
+  @Test
+  void it_prevents_redefining_keys_of_its_parent() {
+    var parent = StaticContext.EMPTY.with(Map.of("service", "search"));
+
+    assertThrows(IllegalArgumentException.class, () -> parent.with(Map.of("service", "cart")));
+  }
+
+  @Test
+  void it_fails_to_encode_values_that_cannot_be_JSON_encoded() {
+    assertThrows(
+        SerializerFailure.class, () -> StaticContext.EMPTY.with(Map.of("service", new Object())));
+  }
+
+  @Test
+  void it_includes_the_entries_of_its_parent() {
+    var parent = StaticContext.EMPTY.with(Map.of("service", "search"));
+
+    var context = parent.with(Map.of("version", "1.0.0"));
+
+    assertContextSize(2, context.entries());
+    assertContextValueEquals("search", "service", context.entries());
+    assertContextValueEquals("1.0.0", "version", context.entries());
+    assertContextSize(1, parent.entries());
+  }
+}
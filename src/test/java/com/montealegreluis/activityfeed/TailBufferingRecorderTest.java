@@ -0,0 +1,84 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.assertions.IllegalArgumentException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class TailBufferingRecorderTest {
+  @Test
+  void it_prevents_an_empty_buffer() {
+    assertThrows(IllegalArgumentException.class, () -> new TailBufferingRecorder(recorder, 0));
+  }
+
+  @Test
+  void it_records_activities_right_away_outside_a_scope() {
+    recorder.record(Activity.debug("file-saved", "File saved"));
+
+    assertEquals(List.of("File saved"), recorded);
+  }
+
+  @Test
+  void it_records_informational_activities_right_away_within_a_scope() {
+    try (var ignored = recorder.openScope()) {
+      recorder.record(Activity.debug("file-saved", "File saved"));
+      recorder.record(Activity.info("save-customer-profile", "Customer profile was saved"));
+    }
+
+    assertEquals(List.of("Customer profile was saved"), recorded);
+  }
+
+  @Test
+  void it_discards_debugging_activities_if_the_scope_succeeds() {
+    try (var ignored = recorder.openScope()) {
+      recorder.record(Activity.trace("method-arguments", "Method call arguments"));
+      recorder.record(Activity.debug("file-saved", "File saved"));
+    }
+
+    assertTrue(recorded.isEmpty());
+  }
+
+  @Test
+  void it_records_debugging_activities_before_an_error() {
+    try (var ignored = recorder.openScope()) {
+      recorder.record(Activity.trace("method-arguments", "Method call arguments"));
+      recorder.record(Activity.debug("file-saved", "File saved"));
+      recorder.record(Activity.error("server-error", "Server error"));
+      recorder.record(Activity.debug("file-deleted", "File deleted"));
+    }
+
+    assertEquals(
+        List.of("Method call arguments", "File saved", "Server error", "File deleted"), recorded);
+  }
+
+  @Test
+  void it_keeps_only_the_most_recent_debugging_activities() {
+    try (var ignored = recorder.openScope()) {
+      recorder.record(Activity.debug("file-saved", "File 1 saved"));
+      recorder.record(Activity.debug("file-saved", "File 2 saved"));
+      recorder.record(Activity.debug("file-saved", "File 3 saved"));
+      recorder.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    }
+
+    assertEquals(List.of("File 2 saved", "File 3 saved", "Product price is invalid"), recorded);
+  }
+
+  @Test
+  void it_restores_the_previous_scope_when_closed() {
+    try (var ignored = recorder.openScope()) {
+      try (var nested = recorder.openScope()) {
+        recorder.record(Activity.error("server-error", "Server error"));
+      }
+      recorder.record(Activity.debug("file-saved", "File saved"));
+    }
+    recorder.record(Activity.debug("file-deleted", "File deleted"));
+
+    assertEquals(List.of("Server error", "File deleted"), recorded);
+  }
+
+  private final List<String> recorded = new ArrayList<>();
+  private final TailBufferingRecorder recorder =
+      new TailBufferingRecorder((activity) -> recorded.add(activity.message()), 2);
+}
@@ -0,0 +1,155 @@
+package com.montealegreluis.activityfeed;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class WorkloadProfileTest {
+  @Test
+  void it_keeps_the_shape_of_archived_activities() throws IOException {
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(
+          Activity.info(
+              "product-searched",
+              "Products were searched",
+              (context) -> {
+                context.put("query", "blue shoes");
+                context.put("results", List.of(1, 2, 3));
+                context.put("page", 2);
+              }));
+    }
+
+    var activity = WorkloadProfile.fromArchive(file).activity(0);
+
+    assertEquals("product-searched", activity.identifier().value());
+    assertEquals("xxxxxxxxxxxxxxxxxxxxxx", activity.message());
+    assertEquals(
+        Map.of(
+            "identifier", "product-searched",
+            "query", "xxxxxxxxxx",
+            "results", List.of(1, 2, 3),
+            "page", 2),
+        activity.context().get("context"));
+  }
+
+  @Test
+  void it_keeps_the_depth_of_archived_exceptions() throws IOException {
+    var exception = new IllegalStateException("Failed", new RuntimeException("Cause"));
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(
+          Activity.error(
+              "server-error",
+              "Server error",
+              (context) ->
+                  context.put("exception", ExceptionContextFactory.contextFrom(exception))));
+    }
+
+    var activity = WorkloadProfile.fromArchive(file).activity(0);
+
+    @SuppressWarnings("unchecked")
+    var context = (Map<String, Object>) activity.context().get("context");
+    @SuppressWarnings("unchecked")
+    var replayed = (Map<String, Object>) context.get("exception");
+    @SuppressWarnings("unchecked")
+    var previous = (Map<String, Object>) replayed.get("previous");
+    assertEquals("xxxxxx", replayed.get("message"));
+    assertEquals(exception.getStackTrace().length, ((List<?>) replayed.get("trace")).size());
+    assertEquals("xxxxx", previous.get("message"));
+    assertFalse(previous.containsKey("previous"));
+  }
+
+  @Test
+  void it_replays_call_sites_as_call_sites() throws IOException {
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(
+          Activity.warning(
+              "slow-query",
+              "Query was slow",
+              (context) -> context.put("location", ExceptionContextFactory.callSite())));
+    }
+
+    var activity = WorkloadProfile.fromArchive(file).activity(0);
+
+    @SuppressWarnings("unchecked")
+    var context = (Map<String, Object>) activity.context().get("context");
+    @SuppressWarnings("unchecked")
+    var replayed = (Map<String, Object>) context.get("location");
+    assertFalse(replayed.containsKey("message"));
+    assertTrue(replayed.containsKey("trace"));
+  }
+
+  @Test
+  void it_keeps_maps_that_only_look_like_exceptions() throws IOException {
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(
+          Activity.info(
+              "route-traced",
+              "Route was traced",
+              (context) ->
+                  context.put(
+                      "route", Map.of("message", "ok", "trace", List.of("a"), "hops", 1))));
+    }
+
+    var activity = WorkloadProfile.fromArchive(file).activity(0);
+
+    @SuppressWarnings("unchecked")
+    var context = (Map<String, Object>) activity.context().get("context");
+    assertEquals(
+        Map.of("message", "xx", "trace", List.of("x"), "hops", 1), context.get("route"));
+  }
+
+  @Test
+  void it_keeps_activities_with_the_same_shape_once_and_replays_them_as_often() throws IOException {
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(Activity.info("product-searched", "Products were searched"));
+      archive.record(Activity.info("product-searched", "Products were sorted"));
+      archive.record(Activity.info("product-searched", "Products were searched"));
+      archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    }
+
+    var profile = WorkloadProfile.fromArchive(file);
+
+    assertEquals(4, profile.size());
+    assertEquals(3, profile.distinctShapes());
+    var replayed = new ArrayList<String>();
+    for (int i = 0; i < 8; i++) replayed.add(profile.activity(i).identifier().value());
+    assertEquals(6, Collections.frequency(replayed, "product-searched"));
+    assertEquals(2, Collections.frequency(replayed, "invalid-product-price"));
+  }
+
+  @Test
+  void it_replays_a_workload_against_a_feed() throws Exception {
+    try (var archive = new ActivityArchive(file)) {
+      archive.record(Activity.info("product-searched", "Products were searched"));
+      archive.record(Activity.warning("invalid-product-price", "Product price is invalid"));
+    }
+    var recorder = new CountingRecorder();
+
+    var report =
+        new WorkloadReplay(WorkloadProfile.fromArchive(file), 2, 50, 0)
+            .run(new ActivityFeed(List.of(recorder)));
+
+    assertEquals(100, report.activities());
+  }
+
+  @BeforeEach
+  void let() throws IOException {
+    file = Files.createTempFile("workload", ".archive");
+  }
+
+  @AfterEach
+  void cleanUp() throws IOException {
+    Files.delete(file);
+  }
+
+  private Path file;
+}
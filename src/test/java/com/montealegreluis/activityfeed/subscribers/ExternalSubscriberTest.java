@@ -0,0 +1,71 @@
+package com.montealegreluis.activityfeed.subscribers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.montealegreluis.activityfeed.Activity;
+import com.montealegreluis.activityfeed.ActivityFeed;
+import com.montealegreluis.activityfeed.CorrelationContext;
+import com.montealegreluis.activityfeed.RecordedActivity;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+/** Subscribes from outside the package, as applications do */
+final class ExternalSubscriberTest {
+  @Test
+  void it_reads_every_part_of_a_published_activity() throws InterruptedException {
+    var feed =
+        new ActivityFeed(List.of(activity -> {}))
+            .withSequence()
+            .withContext(Map.of("service", "customers"));
+    var subscriber = new QueueSubscriber();
+    feed.publisher().subscribe(subscriber);
+
+    CorrelationContext.empty()
+        .with("requestId", "a2a8c2f4")
+        .run(
+            () ->
+                feed.add(
+                    Activity.warning(
+                        "invalid-product-price",
+                        "Product price is invalid",
+                        (context) -> context.put("price", -1))));
+
+    var activity = subscriber.activities.poll(5, TimeUnit.SECONDS);
+    assertNotNull(activity);
+    assertEquals(Level.WARN, activity.level());
+    assertEquals("invalid-product-price", activity.identifier().value());
+    assertEquals("Product price is invalid", activity.message());
+    assertTrue(activity.timestamp() > 0);
+    assertEquals(1, activity.sequence());
+    assertEquals(Map.of("price", -1), activity.context());
+    assertEquals(Map.of("requestId", "a2a8c2f4"), activity.correlation());
+    assertEquals(Map.of("service", "customers"), activity.staticContext());
+    assertThrows(UnsupportedOperationException.class, () -> activity.context().put("price", 0));
+  }
+
+  private static final class QueueSubscriber implements Flow.Subscriber<RecordedActivity> {
+    private final BlockingQueue<RecordedActivity> activities = new ArrayBlockingQueue<>(10);
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(RecordedActivity activity) {
+      activities.add(activity);
+    }
+
+    @Override
+    public void onError(Throwable error) {}
+
+    @Override
+    public void onComplete() {}
+  }
+}
@@ -0,0 +1,264 @@
+package com.montealegreluis.activityfeed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+/**
+ * Adds activities to a feed from several threads at once
+ *
+ * <p>By default every activity gets a unique message, so recorders like the {@link
+ * CountingRecorder} can detect lost or duplicated activities. The time spent in each call to {@link
+ * ActivityFeed#add} is kept to report throughput and tail latencies, along with the bytes allocated
+ * by the producers while adding them. Every producer creates its activities before it starts, so
+ * neither the time nor the allocations needed to create them are reported.
+ */
+public final class ConcurrentProducers {
+  private final int producers;
+  private final int activitiesPerProducer;
+
+  /** Sweeps a counting recorder, then the same recorder behind a {@link ShardedRecorder} */
+  public static void main(String[] args) throws InterruptedException {
+    int activitiesPerProducer = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    sweep(activitiesPerProducer).forEach(System.out::println);
+    sweep(activitiesPerProducer, (recorder) -> new ShardedRecorder(List.of(recorder)))
+        .forEach(System.out::println);
+  }
+
+  /** Reports throughput, tail latencies and losses from 1 up to twice the available processors */
+  public static List<Report> sweep(int activitiesPerProducer) throws InterruptedException {
+    return sweep(activitiesPerProducer, UnaryOperator.identity());
+  }
+
+  /**
+   * Sweeps the recorder the given function puts in front of a counting recorder. Recorders that
+   * are {@link Closeable} are closed before counting, so buffered activities are not reported as
+   * lost
+   */
+  public static List<Report> sweep(
+      int activitiesPerProducer, UnaryOperator<ActivityRecorder> recorderInFrontOf)
+      throws InterruptedException {
+    List<Report> reports = new ArrayList<>();
+    int maximumProducers = 2 * Runtime.getRuntime().availableProcessors();
+    for (int producers = 1; producers <= maximumProducers; producers *= 2) {
+      var counting = new CountingRecorder();
+      var recorder = recorderInFrontOf.apply(counting);
+      var report =
+          new ConcurrentProducers(producers, activitiesPerProducer)
+              .run(new ActivityFeed(List.of(recorder)));
+      if (recorder instanceof Closeable) close((Closeable) recorder);
+      reports.add(report.counted(counting));
+    }
+    return reports;
+  }
+
+  private static void close(Closeable recorder) {
+    try {
+      recorder.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public ConcurrentProducers(int producers, int activitiesPerProducer) {
+    this.producers = producers;
+    this.activitiesPerProducer = activitiesPerProducer;
+  }
+
+  public Report run(ActivityFeed feed) throws InterruptedException {
+    return run(
+        feed,
+        (producer, index) ->
+            Activity.info("producer-" + producer, "Activity " + producer + "-" + index),
+        0);
+  }
+
+  /**
+   * Adds the given activities at a fixed rate per second among all producers, or as fast as
+   * possible if the rate is 0. With a fixed rate, latencies are measured from the moment each
+   * activity was meant to be added, so stalls are not hidden by the producers falling behind.
+   *
+   * <p>If any producer fails, the first failure is rethrown once all producers are done, with the
+   * rest of them as suppressed exceptions
+   */
+  public Report run(ActivityFeed feed, Activities activities, double ratePerSecond)
+      throws InterruptedException {
+    var start = new CountDownLatch(1);
+    var done = new CountDownLatch(producers);
+    var latencies = new long[producers][activitiesPerProducer];
+    var allocated = new AtomicLong();
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    long interval = ratePerSecond > 0 ? (long) (producers * 1_000_000_000L / ratePerSecond) : 0;
+    List<Thread> threads = new ArrayList<>();
+    for (int producer = 0; producer < producers; producer++) {
+      var id = producer;
+      var thread =
+          new Thread(
+              () -> {
+                try {
+                  var created = new Activity[activitiesPerProducer];
+                  for (int i = 0; i < created.length; i++) created[i] = activities.create(id, i);
+                  awaitStart(start);
+                  long allocatedBefore = allocatedBytes();
+                  long scheduled = System.nanoTime();
+                  for (int i = 0; i < activitiesPerProducer; i++) {
+                    var activity = created[i];
+                    created[i] = null;
+                    long begin = System.nanoTime();
+                    if (interval > 0) {
+                      scheduled += interval;
+                      while (begin < scheduled) {
+                        LockSupport.parkNanos(scheduled - begin);
+                        begin = System.nanoTime();
+                      }
+                      begin = scheduled;
+                    }
+                    feed.add(activity);
+                    latencies[id][i] = System.nanoTime() - begin;
+                  }
+                  allocated.addAndGet(allocatedBytes() - allocatedBefore);
+                } catch (RuntimeException | Error e) {
+                  failures.add(e);
+                } finally {
+                  done.countDown();
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    if (!done.await(1, TimeUnit.MINUTES)) {
+      threads.forEach(Thread::interrupt);
+      throw new IllegalStateException("Producers did not finish within a minute");
+    }
+    rethrowFirst(failures);
+    return new Report(producers, System.nanoTime() - begin, latencies, allocated.get());
+  }
+
+  private static void rethrowFirst(Queue<Throwable> failures) {
+    var first = failures.poll();
+    if (first == null) return;
+    var failure = new IllegalStateException("Producer failed: " + first.getMessage(), first);
+    failures.forEach(failure::addSuppressed);
+    throw failure;
+  }
+
+  /** Bytes allocated so far by the current thread, or 0 if the JVM cannot tell */
+  private static long allocatedBytes() {
+    var threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+    return ((com.sun.management.ThreadMXBean) threads)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  public interface Activities {
+    Activity create(int producer, int index);
+  }
+
+  private static void awaitStart(CountDownLatch start) {
+    try {
+      start.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public static final class Report {
+    private final int producers;
+    private final long elapsedNanos;
+    private final long[] latencies;
+    private final long allocatedBytes;
+    private final int lost;
+    private final int duplicated;
+
+    private Report(int producers, long elapsedNanos, long[][] latencies, long allocatedBytes) {
+      this(
+          producers,
+          elapsedNanos,
+          Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray(),
+          allocatedBytes,
+          0,
+          0);
+    }
+
+    private Report(
+        int producers,
+        long elapsedNanos,
+        long[] latencies,
+        long allocatedBytes,
+        int lost,
+        int duplicated) {
+      this.producers = producers;
+      this.elapsedNanos = elapsedNanos;
+      this.latencies = latencies;
+      this.allocatedBytes = allocatedBytes;
+      this.lost = lost;
+      this.duplicated = duplicated;
+    }
+
+    /** This report along with the activities the given recorder lost or got more than once */
+    public Report counted(CountingRecorder recorder) {
+      return new Report(
+          producers,
+          elapsedNanos,
+          latencies,
+          allocatedBytes,
+          activities() - recorder.distinct(),
+          recorder.duplicated());
+    }
+
+    public int activities() {
+      return latencies.length;
+    }
+
+    public double throughput() {
+      return latencies.length / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    public long percentile(double percentile) {
+      int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+    }
+
+    public int lost() {
+      return lost;
+    }
+
+    public int duplicated() {
+      return duplicated;
+    }
+
+    public long allocatedBytesPerActivity() {
+      return latencies.length == 0 ? 0 : allocatedBytes / latencies.length;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "producers=%d activities=%d throughput=%.0f/s p50=%dns p99=%dns p99.9=%dns max=%dns"
+              + " allocated=%dB/activity lost=%d duplicated=%d",
+          producers,
+          activities(),
+          throughput(),
+          percentile(50),
+          percentile(99),
+          percentile(99.9),
+          percentile(100),
+          allocatedBytesPerActivity(),
+          lost,
+          duplicated);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.montealegreluis.activityfeed;
+
+/** Counts how many times its stack trace is read */
+public final class CountingException extends RuntimeException {
+  private int stackTraceReads;
+
+  @Override
+  public StackTraceElement[] getStackTrace() {
+    stackTraceReads++;
+    return super.getStackTrace();
+  }
+
+  public int stackTraceReads() {
+    return stackTraceReads;
+  }
+}
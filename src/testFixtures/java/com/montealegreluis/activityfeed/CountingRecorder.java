@@ -0,0 +1,24 @@
+package com.montealegreluis.activityfeed;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CountingRecorder implements ActivityRecorder {
+  private final Map<String, AtomicInteger> recorded = new ConcurrentHashMap<>();
+
+  @Override
+  public void record(Activity activity) {
+    recorded
+        .computeIfAbsent(activity.message(), (message) -> new AtomicInteger())
+        .incrementAndGet();
+  }
+
+  public int distinct() {
+    return recorded.size();
+  }
+
+  public int duplicated() {
+    return (int) recorded.values().stream().filter((count) -> count.get() > 1).count();
+  }
+}
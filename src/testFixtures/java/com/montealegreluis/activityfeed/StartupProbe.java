@@ -0,0 +1,64 @@
+package com.montealegreluis.activityfeed;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records a single activity right after startup and prints how long it took since the process
+ * started, along with the resident memory of the process
+ *
+ * <p>Arguments: the feed to use, <code>logging</code> (the default) for {@link
+ * ActivityFeed#withLogging} or <code>json</code> for {@link ActivityFeed#withJsonLines}, the
+ * maximum time to the first activity in milliseconds, and the maximum resident memory in kB. The
+ * process exits with status 1 if any of the given maximums is exceeded, 0 means no maximum.
+ */
+public final class StartupProbe {
+  public static void main(String[] args) throws IOException {
+    var mode = args.length > 0 ? args[0] : "logging";
+    long maxMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+    long maxResidentKb = args.length > 2 ? Long.parseLong(args[2]) : 0;
+    var feed =
+        "json".equals(mode)
+            ? ActivityFeed.withJsonLines(OutputStream.nullOutputStream())
+            : ActivityFeed.withLogging(LoggerFactory.getLogger(StartupProbe.class));
+
+    feed.add(Activity.info("application-started", "Application started"));
+
+    var started = ProcessHandle.current().info().startInstant().orElseThrow();
+    long millis = Duration.between(started, Instant.now()).toMillis();
+    long residentKb = residentMemoryKb();
+    System.out.printf(
+        "mode=%s timeToFirstActivity=%dms rss=%s%n",
+        mode, millis, residentKb < 0 ? "unknown" : residentKb + "kB");
+
+    boolean exceeded = false;
+    if (maxMillis > 0 && millis > maxMillis) {
+      System.err.printf("Time to first activity exceeded %dms%n", maxMillis);
+      exceeded = true;
+    }
+    if (maxResidentKb > 0 && residentKb > maxResidentKb) {
+      System.err.printf("Resident memory exceeded %dkB%n", maxResidentKb);
+      exceeded = true;
+    }
+    if (exceeded) System.exit(1);
+  }
+
+  /** Read from /proc, so it is only available on Linux, -1 elsewhere */
+  private static long residentMemoryKb() throws IOException {
+    var status = Path.of("/proc/self/status");
+    if (!Files.exists(status)) return -1;
+    try (var lines = Files.lines(status)) {
+      return lines
+          .filter((line) -> line.startsWith("VmRSS:"))
+          .map((line) -> line.substring("VmRSS:".length()).replace("kB", "").trim())
+          .mapToLong(Long::parseLong)
+          .findFirst()
+          .orElse(-1);
+    }
+  }
+}
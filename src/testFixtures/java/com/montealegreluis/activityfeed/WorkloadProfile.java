@@ -0,0 +1,223 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.event.Level;
+
+/**
+ * The shape of the activities in an {@link ActivityArchive}, to reproduce a real workload offline
+ *
+ * <p>Identifiers, levels and context keys are kept. Strings are replaced with strings of the same
+ * length, collections and maps keep their sizes, and exceptions are replaced with synthetic
+ * exceptions with the same amount of causes and stack frames. Call sites are captured again where
+ * the activity is replayed. Other values are kept as they are.
+ *
+ * <p>Activities with the same shape are kept once, along with how many times it was archived, and
+ * replayed in the same proportion. Up to 10,000 distinct shapes are kept, activities with any
+ * other shape are ignored and counted.
+ */
+public final class WorkloadProfile {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Set<String> EXCEPTION_KEYS =
+      Set.of("message", "class", "line", "file", "trace", "previous");
+  private static final Object CALL_SITE = new Object();
+  private static final int MAX_SHAPES = 10_000;
+  /** A prime, so positions are spread over all shapes instead of replaying them one at a time */
+  private static final long SPREAD = 2_147_483_629L;
+  private final List<ActivityShape> shapes;
+  private final long[] cumulativeWeights;
+  private final long ignored;
+
+  public static WorkloadProfile fromArchive(Path archive) throws IOException {
+    return fromArchive(archive, Instant.MIN, Instant.MAX);
+  }
+
+  public static WorkloadProfile fromArchive(Path archive, Instant from, Instant to)
+      throws IOException {
+    Map<List<Object>, long[]> weights = new LinkedHashMap<>();
+    long[] ignored = {0};
+    ActivityArchive.read(
+        archive,
+        from,
+        to,
+        (json) -> {
+          var key = keyOf(json);
+          var weight = weights.get(key);
+          if (weight != null) weight[0]++;
+          else if (weights.size() < MAX_SHAPES) weights.put(key, new long[] {1});
+          else ignored[0]++;
+        });
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("Archive has no activities within the given range");
+    }
+    return new WorkloadProfile(weights, ignored[0]);
+  }
+
+  /** Amount of archived activities the profile represents */
+  public int size() {
+    return (int) Math.min(Integer.MAX_VALUE, cumulativeWeights[cumulativeWeights.length - 1]);
+  }
+
+  public int distinctShapes() {
+    return shapes.size();
+  }
+
+  /** Archived activities with a shape other than the first 10,000 distinct ones */
+  public long ignored() {
+    return ignored;
+  }
+
+  /**
+   * A new activity with one of the archived shapes, every shape is used as many times as it was
+   * archived for every {@link #size()} consecutive positions
+   */
+  public Activity activity(int index) {
+    long total = cumulativeWeights[cumulativeWeights.length - 1];
+    long position = Math.floorMod(index * SPREAD, total);
+    int shape = Arrays.binarySearch(cumulativeWeights, position);
+    return shapes.get(shape >= 0 ? shape + 1 : -shape - 1).activity();
+  }
+
+  /** Level, identifier, message and context with every string replaced */
+  @SuppressWarnings("unchecked")
+  private static List<Object> keyOf(String json) {
+    try {
+      var activity = (Map<String, Object>) MAPPER.readValue(json, LinkedHashMap.class);
+      var context = (Map<String, Object>) activity.get("context");
+      Map<String, Object> template = new LinkedHashMap<>();
+      context.forEach(
+          (key, value) -> {
+            if (!"identifier".equals(key)) template.put(key, blanked(value));
+          });
+      return List.of(
+          activity.get("level"),
+          context.get("identifier"),
+          blanked(activity.get("message")),
+          template);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object blanked(Object value) {
+    if (value instanceof String) return "x".repeat(((String) value).length());
+    if (value instanceof List) {
+      List<Object> blanked = new ArrayList<>();
+      for (var element : (List<Object>) value) blanked.add(blanked(element));
+      return blanked;
+    }
+    if (value instanceof Map) {
+      Map<String, Object> blanked = new LinkedHashMap<>();
+      ((Map<String, Object>) value).forEach((key, entry) -> blanked.put(key, blanked(entry)));
+      return blanked;
+    }
+    return value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ActivityShape shapeOf(List<Object> key) {
+    Map<String, Object> template = new LinkedHashMap<>();
+    ((Map<String, Object>) key.get(3))
+        .forEach((name, value) -> template.put(name, templateOf(value)));
+    return new ActivityShape(
+        Level.valueOf((String) key.get(0)),
+        ActivityIdentifier.of((String) key.get(1)),
+        (String) key.get(2),
+        template);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object templateOf(Object value) {
+    if (value instanceof List) {
+      List<Object> template = new ArrayList<>();
+      for (var element : (List<Object>) value) template.add(templateOf(element));
+      return template;
+    }
+    if (value instanceof Map) {
+      var map = (Map<String, Object>) value;
+      if (isException(map)) return map.containsKey("message") ? exceptionOf(map) : CALL_SITE;
+      Map<String, Object> template = new LinkedHashMap<>();
+      map.forEach((key, entry) -> template.put(key, templateOf(entry)));
+      return template;
+    }
+    return value;
+  }
+
+  /** Exception contexts always have a trace, only call sites have no message */
+  private static boolean isException(Map<String, Object> map) {
+    return map.get("trace") instanceof List && EXCEPTION_KEYS.containsAll(map.keySet());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Throwable exceptionOf(Map<String, Object> context) {
+    var previous = (Map<String, Object>) context.get("previous");
+    var cause = previous == null ? null : exceptionOf(previous);
+    var exception = new SyntheticException((String) context.get("message"), cause);
+    var frames = new StackTraceElement[((List<?>) context.get("trace")).size()];
+    for (int i = 0; i < frames.length; i++) {
+      frames[i] = new StackTraceElement("com.example.Workload", "frame" + i, "Workload.java", i);
+    }
+    exception.setStackTrace(frames);
+    return exception;
+  }
+
+  private WorkloadProfile(Map<List<Object>, long[]> weights, long ignored) {
+    this.shapes = new ArrayList<>();
+    this.cumulativeWeights = new long[weights.size()];
+    long total = 0;
+    for (var weight : weights.entrySet()) {
+      total += weight.getValue()[0];
+      cumulativeWeights[shapes.size()] = total;
+      shapes.add(shapeOf(weight.getKey()));
+    }
+    this.ignored = ignored;
+  }
+
+  private static final class ActivityShape {
+    private final Level level;
+    private final ActivityIdentifier identifier;
+    private final String message;
+    private final Map<String, Object> template;
+
+    private ActivityShape(
+        Level level, ActivityIdentifier identifier, String message, Map<String, Object> template) {
+      this.level = level;
+      this.identifier = identifier;
+      this.message = message;
+      this.template = template;
+    }
+
+    /** Exceptions are extracted again for every activity, as the application would do */
+    private Activity activity() {
+      return Activity.withLevel(
+          level,
+          identifier,
+          message,
+          (context) -> template.forEach((key, value) -> context.put(key, replayed(value))));
+    }
+
+    private static Object replayed(Object value) {
+      if (value instanceof Throwable) {
+        return ExceptionContextFactory.contextFrom((Throwable) value);
+      }
+      if (value == CALL_SITE) return ExceptionContextFactory.callSite();
+      return value;
+    }
+  }
+
+  private static final class SyntheticException extends RuntimeException {
+    private SyntheticException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.montealegreluis.activityfeed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Adds activities with the shape of a recorded workload to a feed, from several threads and at a
+ * fixed rate if required
+ */
+public final class WorkloadReplay {
+  private final WorkloadProfile profile;
+  private final int producers;
+  private final int activitiesPerProducer;
+  private final double ratePerSecond;
+
+  /**
+   * Replays an archive against a feed that encodes every activity as JSON and discards it
+   *
+   * <p>Arguments: archive path, producers (1), activities per producer (100,000), and rate per
+   * second (0, as fast as possible)
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 1) {
+      throw new IllegalArgumentException(
+          "Usage: WorkloadReplay <archive> [producers] [activitiesPerProducer] [ratePerSecond]");
+    }
+    var profile = WorkloadProfile.fromArchive(Path.of(args[0]));
+    var encoder = new JsonActivityEncoder(new ObjectMapper());
+    ActivityRecorder recorder = (activity) -> encoder.encode(activity);
+    var report =
+        new WorkloadReplay(
+                profile,
+                args.length > 1 ? Integer.parseInt(args[1]) : 1,
+                args.length > 2 ? Integer.parseInt(args[2]) : 100_000,
+                args.length > 3 ? Double.parseDouble(args[3]) : 0)
+            .run(new ActivityFeed(List.of(recorder)));
+    System.out.printf(
+        "shapes=%d ignored=%d %s%n", profile.distinctShapes(), profile.ignored(), report);
+  }
+
+  public WorkloadReplay(
+      WorkloadProfile profile, int producers, int activitiesPerProducer, double ratePerSecond) {
+    this.profile = profile;
+    this.producers = producers;
+    this.activitiesPerProducer = activitiesPerProducer;
+    this.ratePerSecond = ratePerSecond;
+  }
+
+  /**
+   * Every producer starts at a different position of the workload
+   *
+   * <p>Activities are created before the producers start, their context factories run when the feed
+   * records them, so the reported allocations include extracting their exceptions
+   */
+  public ConcurrentProducers.Report run(ActivityFeed feed) throws InterruptedException {
+    int offset = Math.max(1, profile.size() / producers);
+    return new ConcurrentProducers(producers, activitiesPerProducer)
+        .run(
+            feed,
+            (producer, index) -> profile.activity(producer * offset + index),
+            ratePerSecond);
+  }
+}